@@ -0,0 +1,136 @@
+package datastructures.bst;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark: lookups in a static sorted key set
+ *
+ * - EytzingerIndex.contains / lowerBound, and contains without the prefetching loads
+ * - Arrays.binarySearch on the sorted array
+ * - a pointer tree with the same node shape as BinarySearchTree, built perfectly balanced
+ * - IntTreeMap (pointer-based AVL)
+ *
+ * Half of the probes hit. Also reports EytzingerIndex build time, sequential
+ * and parallel. Pointer trees are skipped above 4M keys to keep the heap small.
+ *
+ * Usage: EytzingerBenchmark [maxLog2Size] [probes]
+ */
+public class EytzingerBenchmark {
+
+    public static void main(String[] args) {
+        int maxLog = args.length > 0 ? Integer.parseInt(args[0]) : 24;
+        int probeCount = args.length > 1 ? Integer.parseInt(args[1]) : 4_000_000;
+        Random random = new Random(42);
+
+        System.out.printf("%10s %10s %10s %10s %10s %10s %10s %12s %12s%n", "keys", "eytz.cont", "no prefch",
+                "eytz.lb", "binsearch", "nodeTree", "IntTreeMap", "build seq", "build par");
+        for (int log = 10; log <= maxLog; log += 2) {
+            int n = 1 << log;
+            int[] sorted = new int[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = 2 * i;  // Even keys; odd probes miss
+            }
+            int[] probes = new int[probeCount];
+            for (int i = 0; i < probeCount; i++) {
+                probes[i] = random.nextInt(2 * n);
+            }
+
+            long start = System.nanoTime();
+            EytzingerIndex.build(sorted, false);
+            long sequentialBuild = System.nanoTime() - start;
+            start = System.nanoTime();
+            EytzingerIndex index = EytzingerIndex.build(sorted, true);
+            long parallelBuild = System.nanoTime() - start;
+
+            Node nodeTree = null;
+            IntTreeMap<Boolean> treeMap = null;
+            if (n <= 1 << 22) {
+                nodeTree = balanced(sorted, 0, n - 1);
+                treeMap = new IntTreeMap<>();
+                for (int key : sorted) {
+                    treeMap.put(key, Boolean.TRUE);
+                }
+            }
+
+            double eytzingerContains = 0;
+            double withoutPrefetch = 0;
+            double eytzingerLowerBound = 0;
+            double binarySearch = 0;
+            double nodes = Double.NaN;
+            double avl = Double.NaN;
+            for (int pass = 0; pass < 2; pass++) {  // First pass is warm-up
+                eytzingerContains = measure(probes, key -> index.contains(key) ? 1 : 0);
+                withoutPrefetch = measure(probes, key -> index.containsWithoutPrefetch(key) ? 1 : 0);
+                eytzingerLowerBound = measure(probes, index::lowerBound);
+                binarySearch = measure(probes, key -> Arrays.binarySearch(sorted, key) >= 0 ? 1 : 0);
+                if (nodeTree != null) {
+                    Node root = nodeTree;
+                    IntTreeMap<Boolean> map = treeMap;
+                    nodes = measure(probes, key -> contains(root, key) ? 1 : 0);
+                    avl = measure(probes, key -> map.containsKey(key) ? 1 : 0);
+                }
+            }
+            System.out.printf("%10d %7.1f ns %7.1f ns %7.1f ns %7.1f ns %7.1f ns %7.1f ns %9.1f ms %9.1f ms%n", n,
+                    eytzingerContains, withoutPrefetch, eytzingerLowerBound, binarySearch, nodes, avl,
+                    sequentialBuild / 1e6, parallelBuild / 1e6);
+        }
+    }
+
+    /**
+     * Perfectly balanced tree over sorted[from..to]; depth is log n, so recursion is fine
+     */
+    private static Node balanced(int[] sorted, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = new Node(sorted[mid]);
+        node.left = balanced(sorted, from, mid - 1);
+        node.right = balanced(sorted, mid + 1, to);
+        return node;
+    }
+
+    private static boolean contains(Node node, int key) {
+        while (node != null) {
+            if (key == node.data) {
+                return true;
+            }
+            node = key < node.data ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Average ns per probe
+     */
+    private static double measure(int[] probes, Probe probe) {
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int key : probes) {
+            checksum += probe.run(key);
+        }
+        long nanos = System.nanoTime() - start;
+        if (checksum == Long.MIN_VALUE) {
+            System.out.println(checksum);
+        }
+        return (double) nanos / probes.length;
+    }
+
+    private interface Probe {
+        int run(int key);
+    }
+
+    /**
+     * Same shape as the Node in BinarySearchTree.java, which is not visible outside that file
+     */
+    private static final class Node {
+        final int data;
+        Node left;
+        Node right;
+
+        Node(int data) {
+            this.data = data;
+        }
+    }
+}
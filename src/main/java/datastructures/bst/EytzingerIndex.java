@@ -0,0 +1,246 @@
+package datastructures.bst;
+
+import java.util.stream.IntStream;
+
+/**
+ * Static Search Tree in Eytzinger (BFS) Layout
+ *
+ * A read-only ordered index over int keys for tables that are built once and
+ * probed very often. The keys are laid out as an implicit binary search tree in
+ * breadth-first order: the root at slot 1, the children of slot k at 2k and
+ * 2k + 1. There are no pointers, and the top levels of every search share the
+ * same few cache lines, so they stay in cache; binary search over a sorted array
+ * instead scatters its first probes across the whole array.
+ *
+ *   sorted: 10 20 30 40 50 60 70        layout: _ 40 20 60 10 30 50 70
+ *
+ *                40
+ *             /      \
+ *           20        60
+ *          /  \      /  \
+ *        10    30  50    70
+ *
+ * The descent is branch-free: k = 2k + (keys[k] &lt; key), which compiles to a
+ * compare-and-set rather than a jump the CPU has to predict. The loop always runs
+ * for the full height, and the answer is recovered from the final k by dropping the
+ * trailing right turns and one more level. Since the path is a function of the
+ * key, each step also loads the first of k's 16 descendants four levels further
+ * down, pulling its cache line in early to emulate software prefetch. In
+ * EytzingerBenchmark this makes probes 1.2 to 2.9 times faster once the table
+ * outgrows the cache (2^20 keys and up), and costs about 10% on tables that fit
+ * in it.
+ *
+ * Building is O(n): an in-order walk of the implicit tree visits the slots in
+ * sorted order, so the sorted array is copied in a single pass. Large inputs are
+ * split into the subtrees 2^levels below the root and filled in parallel.
+ *
+ * Time Complexity:
+ * - build: O(n)
+ * - lowerBound / upperBound / contains / countInRange: O(log n), no branches in the descent
+ *
+ * Space Complexity: O(n), two ints per key (key and its rank)
+ */
+public final class EytzingerIndex {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int PARALLEL_LEVELS = 6;   // 64 subtrees filled in parallel
+    private static final int MAX_KEYS = 1 << 30;      // Keeps 2k + 1 from overflowing
+    private static final int PREFETCH_MAGIC = 0x5bd1e995;
+
+    private static volatile int prefetchSink;
+
+    private final int[] keys;   // keys[1..n] in BFS order, keys[0] unused
+    private final int[] ranks;  // ranks[k] = index of keys[k] in the sorted input
+    private final int n;
+    private final int prefetchLimit;
+
+    private EytzingerIndex(int n) {
+        this.n = n;
+        this.prefetchLimit = n >>> 4;
+        this.keys = new int[n + 1];
+        this.ranks = new int[n + 1];
+    }
+
+    /**
+     * Build from keys sorted in ascending order (duplicates allowed), in parallel
+     * for large inputs
+     * Time Complexity: O(n)
+     *
+     * @throws IllegalArgumentException if sorted is not sorted
+     */
+    public static EytzingerIndex build(int[] sorted) {
+        return build(sorted, sorted.length >= PARALLEL_THRESHOLD);
+    }
+
+    public static EytzingerIndex build(int[] sorted, boolean parallel) {
+        if (sorted.length >= MAX_KEYS) {
+            throw new IllegalArgumentException("At most " + (MAX_KEYS - 1) + " keys");
+        }
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1] > sorted[i]) {
+                throw new IllegalArgumentException("Keys are not sorted at index " + i);
+            }
+        }
+        EytzingerIndex index = new EytzingerIndex(sorted.length);
+        int n = sorted.length;
+        if (!parallel || n < (1 << (PARALLEL_LEVELS + 1))) {
+            index.fillSubtree(1, 0, n, sorted);
+            return index;
+        }
+
+        // Slots above the split level are few; fill them one by one
+        int firstSplit = 1 << PARALLEL_LEVELS;
+        for (int k = 1; k < firstSplit; k++) {
+            int rank = index.inOrderRank(k);
+            index.keys[k] = sorted[rank];
+            index.ranks[k] = rank;
+        }
+        // Each subtree below covers a contiguous run of the sorted keys
+        IntStream.range(firstSplit, Math.min(2 * firstSplit, n + 1)).parallel().forEach(root ->
+                index.fillSubtree(root, index.inOrderRank(leftmost(root, n)), index.subtreeSize(root), sorted));
+        return index;
+    }
+
+    /**
+     * Number of keys
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Number of keys strictly less than key, i.e. the sorted index of the first
+     * key &gt;= key (size() if there is none)
+     * Time Complexity: O(log n)
+     */
+    public int lowerBound(int key) {
+        int k = slotOfLowerBound(key);
+        return k == 0 ? n : ranks[k];
+    }
+
+    /**
+     * Number of keys less than or equal to key
+     * Time Complexity: O(log n)
+     */
+    public int upperBound(int key) {
+        return key == Integer.MAX_VALUE ? n : lowerBound(key + 1);
+    }
+
+    /**
+     * Time Complexity: O(log n)
+     */
+    public boolean contains(int key) {
+        int k = slotOfLowerBound(key);
+        return k != 0 && keys[k] == key;
+    }
+
+    /**
+     * Number of keys in [from, to]
+     * Time Complexity: O(log n)
+     */
+    public int countInRange(int from, int to) {
+        return from > to ? 0 : upperBound(to) - lowerBound(from);
+    }
+
+    /**
+     * contains() without the look-ahead loads; lets EytzingerBenchmark measure what they buy
+     */
+    boolean containsWithoutPrefetch(int key) {
+        int[] keys = this.keys;
+        int n = this.n;
+        int k = 1;
+        while (k <= n) {
+            k = 2 * k + (keys[k] < key ? 1 : 0);
+        }
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k != 0 && keys[k] == key;
+    }
+
+    /**
+     * Slot of the first key &gt;= key, or 0 if every key is smaller
+     */
+    private int slotOfLowerBound(int key) {
+        int[] keys = this.keys;
+        int n = this.n;
+        int prefetchLimit = this.prefetchLimit;
+        int k = 1;
+        int touched = 0;
+        while (k <= n) {
+            // The 16 descendants of k four levels down are 64 contiguous bytes, but the
+            // JVM does not line-align arrays, so they usually straddle two cache lines.
+            // Java has no prefetch instruction, so load the first of them now: nothing
+            // waits for the value, and the line holding it is in cache by the time the
+            // descent gets there; a path ending in the other line still misses.
+            touched ^= keys[Math.min(k, prefetchLimit) << 4];
+            k = 2 * k + (keys[k] < key ? 1 : 0);
+        }
+        if (touched == PREFETCH_MAGIC) {
+            prefetchSink = touched;     // Practically never; keeps the loads from being optimized away
+        }
+        // k went right after the answer every time since its last left turn: undo
+        // those right turns (the trailing 1 bits) and the left turn itself
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /**
+     * Copy count sorted keys starting at sorted[from] into the subtree rooted at
+     * slot root, visiting its slots in order
+     */
+    private void fillSubtree(int root, int from, int count, int[] sorted) {
+        int k = leftmost(root, n);
+        for (int i = 0; i < count; i++) {
+            keys[k] = sorted[from + i];
+            ranks[k] = from + i;
+            k = successor(k, n);
+        }
+    }
+
+    /**
+     * In-order successor of slot k: leftmost slot of the right subtree, or up past
+     * the right turns and one more level
+     */
+    private static int successor(int k, int n) {
+        if (2 * k + 1 <= n) {
+            return leftmost(2 * k + 1, n);
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    private static int leftmost(int k, int n) {
+        while (2 * k <= n) {
+            k = 2 * k;
+        }
+        return k;
+    }
+
+    /**
+     * Number of slots in the subtree rooted at k, counted level by level
+     */
+    private int subtreeSize(int k) {
+        long low = k;
+        long high = k;
+        int size = 0;
+        while (low <= n) {
+            size += (int) (Math.min(high, n) - low + 1);
+            low = 2 * low;
+            high = 2 * high + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Position of slot k in sorted order: everything in its left subtree, plus, for
+     * every right turn on the path from the root, the parent and its left subtree
+     */
+    private int inOrderRank(int k) {
+        int rank = 2 * k <= n ? subtreeSize(2 * k) : 0;
+        while (k > 1) {
+            if ((k & 1) == 1) {
+                int leftSibling = k - 1;
+                rank += subtreeSize(leftSibling) + 1;
+            }
+            k >>>= 1;
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,425 @@
+package datastructures.bst;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Balanced Ordered Map with Primitive int Keys (AVL Tree)
+ *
+ * An AVL tree: at every node the heights of the two subtrees differ by at most
+ * one, so the height stays below 1.44 log2(n) whatever the insertion order.
+ * Sorted input (timestamps, ids) that turns a plain BST such as
+ * {@link BinarySearchTree} into a linked list keeps this tree at height ~log n.
+ *
+ * Everything is iterative: nodes keep a parent pointer, so insert and delete walk
+ * down to the spot and back up rebalancing, and iterators step to the in-order
+ * successor, with no recursion and no auxiliary stack. Keys are plain ints, never
+ * boxed. Every node also stores the size of its subtree, which answers
+ * order-statistic queries (rank, select, range counts) in O(log n).
+ *
+ * Entries returned by the lookup methods are the tree's own nodes: reading them
+ * allocates nothing, but they are only valid until the next modification.
+ *
+ * Time Complexity (worst case):
+ * - put / remove / get / containsKey: O(log n)
+ * - floor / ceiling / lower / higher / first / last: O(log n)
+ * - rank / select / countInRange: O(log n)
+ * - iteration: O(n) total, O(log n) per step at most
+ *
+ * Space Complexity: O(n)
+ */
+public class IntTreeMap<V> implements Iterable<IntTreeMap.Entry<V>> {
+
+    /**
+     * A key-value mapping; a view of a tree node
+     */
+    public interface Entry<V> {
+        int getKey();
+
+        V getValue();
+    }
+
+    private static final class Node<V> extends IntTreeNode<V, Node<V>> {
+        Node<V> parent;
+
+        Node(int key, V value, Node<V> parent) {
+            super(key, value);
+            this.parent = parent;
+        }
+    }
+
+    private Node<V> root;
+    private int modCount;
+
+    /**
+     * Associate value with key
+     * Time Complexity: O(log n)
+     *
+     * @return the previous value, or null if key was absent
+     */
+    public V put(int key, V value) {
+        if (root == null) {
+            root = new Node<>(key, value, null);
+            modCount++;
+            return null;
+        }
+        Node<V> node = root;
+        Node<V> parent;
+        do {
+            parent = node;
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                V previous = node.value;
+                node.value = value;
+                return previous;
+            }
+        } while (node != null);
+
+        Node<V> added = new Node<>(key, value, parent);
+        if (key < parent.key) {
+            parent.left = added;
+        } else {
+            parent.right = added;
+        }
+        rebalanceUpFrom(parent);
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Value for key, or null if absent
+     * Time Complexity: O(log n)
+     */
+    public V get(int key) {
+        Node<V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Remove key
+     * Time Complexity: O(log n)
+     *
+     * @return the removed value, or null if key was absent
+     */
+    public V remove(int key) {
+        Node<V> node = find(key);
+        if (node == null) {
+            return null;
+        }
+        V previous = node.value;
+
+        // Two children: move the successor's mapping here and unlink the successor instead
+        if (node.left != null && node.right != null) {
+            Node<V> successor = IntTreeNode.min(node.right);
+            node.key = successor.key;
+            node.value = successor.value;
+            node = successor;
+        }
+
+        // node now has at most one child
+        Node<V> child = node.left != null ? node.left : node.right;
+        Node<V> parent = node.parent;
+        if (child != null) {
+            child.parent = parent;
+        }
+        replaceChild(parent, node, child);
+        rebalanceUpFrom(parent);
+        modCount++;
+        return previous;
+    }
+
+    /**
+     * Number of mappings
+     * Time Complexity: O(1)
+     */
+    public int size() {
+        return IntTreeNode.size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void clear() {
+        root = null;
+        modCount++;
+    }
+
+    /**
+     * Height of the tree (0 when empty); at most about 1.44 log2(n)
+     */
+    public int height() {
+        return IntTreeNode.height(root);
+    }
+
+    /**
+     * Smallest key
+     *
+     * @throws NoSuchElementException if the map is empty
+     */
+    public int firstKey() {
+        return IntTreeNode.nonEmpty(firstEntry()).getKey();
+    }
+
+    /**
+     * Largest key
+     *
+     * @throws NoSuchElementException if the map is empty
+     */
+    public int lastKey() {
+        return IntTreeNode.nonEmpty(lastEntry()).getKey();
+    }
+
+    public Entry<V> firstEntry() {
+        return root == null ? null : IntTreeNode.min(root);
+    }
+
+    public Entry<V> lastEntry() {
+        return root == null ? null : IntTreeNode.max(root);
+    }
+
+    /**
+     * Entry with the largest key &lt;= key, or null
+     * Time Complexity: O(log n)
+     */
+    public Entry<V> floorEntry(int key) {
+        return IntTreeNode.floor(root, key);
+    }
+
+    /**
+     * Entry with the smallest key &gt;= key, or null
+     * Time Complexity: O(log n)
+     */
+    public Entry<V> ceilingEntry(int key) {
+        return IntTreeNode.ceiling(root, key);
+    }
+
+    /**
+     * Entry with the largest key &lt; key, or null
+     */
+    public Entry<V> lowerEntry(int key) {
+        return key == Integer.MIN_VALUE ? null : floorEntry(key - 1);
+    }
+
+    /**
+     * Entry with the smallest key &gt; key, or null
+     */
+    public Entry<V> higherEntry(int key) {
+        return key == Integer.MAX_VALUE ? null : ceilingEntry(key + 1);
+    }
+
+    /**
+     * Number of keys strictly less than key
+     * Time Complexity: O(log n)
+     */
+    public int rank(int key) {
+        return IntTreeNode.rank(root, key);
+    }
+
+    /**
+     * Entry with the index-th smallest key (0-based)
+     * Time Complexity: O(log n)
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     */
+    public Entry<V> select(int index) {
+        return IntTreeNode.select(root, index);
+    }
+
+    /**
+     * Number of keys in [from, to]
+     * Time Complexity: O(log n)
+     */
+    public int countInRange(int from, int to) {
+        return IntTreeNode.countInRange(root, from, to);
+    }
+
+    /**
+     * Entries in ascending key order
+     */
+    @Override
+    public Iterator<Entry<V>> iterator() {
+        return new EntryIterator(root == null ? null : IntTreeNode.min(root), Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Entries with keys in [from, to), ascending
+     */
+    public Iterator<Entry<V>> iterator(int from, int to) {
+        return new EntryIterator(IntTreeNode.ceiling(root, from), to, false);
+    }
+
+    /**
+     * Keys in ascending order, unboxed
+     */
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new IntTreeNode.KeyIterator(iterator());
+    }
+
+    /**
+     * Keys in [from, to), ascending, unboxed
+     */
+    public PrimitiveIterator.OfInt keyIterator(int from, int to) {
+        return new IntTreeNode.KeyIterator(iterator(from, to));
+    }
+
+    /**
+     * All keys in ascending order
+     * Time Complexity: O(n)
+     */
+    public int[] keys() {
+        int[] keys = new int[size()];
+        int i = 0;
+        for (Node<V> node = root == null ? null : IntTreeNode.min(root); node != null; node = successor(node)) {
+            keys[i++] = node.key;
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Node<V> node = root == null ? null : IntTreeNode.min(root); node != null; node = successor(node)) {
+            sb.append(node.key).append('=').append(node.value);
+            if (successor(node) != null) {
+                sb.append(", ");
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    private Node<V> find(int key) {
+        return IntTreeNode.find(root, key);
+    }
+
+    /**
+     * Walk from node to the root fixing heights and sizes, rotating wherever the
+     * subtree heights differ by two
+     */
+    private void rebalanceUpFrom(Node<V> node) {
+        while (node != null) {
+            update(node);
+            int balance = IntTreeNode.height(node.left) - IntTreeNode.height(node.right);
+            if (balance > 1) {
+                if (IntTreeNode.height(node.left.left) < IntTreeNode.height(node.left.right)) {
+                    rotateLeft(node.left);      // Left-right case
+                }
+                node = rotateRight(node);
+            } else if (balance < -1) {
+                if (IntTreeNode.height(node.right.right) < IntTreeNode.height(node.right.left)) {
+                    rotateRight(node.right);    // Right-left case
+                }
+                node = rotateLeft(node);
+            }
+            node = node.parent;
+        }
+    }
+
+    /**
+     *     x              y
+     *    / \            / \
+     *   a   y    →     x   c
+     *      / \        / \
+     *     b   c      a   b
+     */
+    private Node<V> rotateLeft(Node<V> x) {
+        Node<V> y = x.right;
+        x.right = y.left;
+        if (y.left != null) {
+            y.left.parent = x;
+        }
+        y.parent = x.parent;
+        replaceChild(x.parent, x, y);
+        y.left = x;
+        x.parent = y;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    private Node<V> rotateRight(Node<V> x) {
+        Node<V> y = x.left;
+        x.left = y.right;
+        if (y.right != null) {
+            y.right.parent = x;
+        }
+        y.parent = x.parent;
+        replaceChild(x.parent, x, y);
+        y.right = x;
+        x.parent = y;
+        update(x);
+        update(y);
+        return y;
+    }
+
+    private void replaceChild(Node<V> parent, Node<V> oldChild, Node<V> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
+    private static <V> void update(Node<V> node) {
+        node.height = Math.max(IntTreeNode.height(node.left), IntTreeNode.height(node.right)) + 1;
+        node.size = IntTreeNode.size(node.left) + IntTreeNode.size(node.right) + 1;
+    }
+
+    /**
+     * In-order successor: leftmost node of the right subtree, or the first
+     * ancestor reached from a left child
+     */
+    private static <V> Node<V> successor(Node<V> node) {
+        if (node.right != null) {
+            return IntTreeNode.min(node.right);
+        }
+        Node<V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<V>> {
+        private final int to;
+        private final boolean unbounded;
+        private final int expectedModCount = modCount;
+        private Node<V> next;
+
+        EntryIterator(Node<V> first, int to, boolean unbounded) {
+            this.to = to;
+            this.unbounded = unbounded;
+            this.next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null && (unbounded || next.key < to);
+        }
+
+        @Override
+        public Entry<V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<V> current = next;
+            next = successor(current);
+            return current;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package datastructures.bst;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Node shape and read-only navigation shared by {@link IntTreeMap} and
+ * {@link PersistentIntTreeMap}
+ *
+ * Both maps are AVL trees whose nodes carry an int key, the height and the size
+ * of their subtree; they differ only in how they change (in place with parent
+ * pointers, or by path copying). Lookups, order statistics and key iteration are
+ * written once here. N is the concrete node type, so left and right need no
+ * casts in the maps' own code.
+ *
+ * Fields are not final because IntTreeMap rewrites nodes in place.
+ * PersistentIntTreeMap never changes a node after its constructor, and reaches
+ * its nodes only through a final root field, which is enough for safe publication.
+ *
+ * Time Complexity: O(log n) for every lookup below, n = size of the subtree
+ */
+abstract class IntTreeNode<V, N extends IntTreeNode<V, N>> implements IntTreeMap.Entry<V> {
+    int key;
+    V value;
+    N left;
+    N right;
+    int height = 1;
+    int size = 1;     // Nodes in this subtree
+
+    IntTreeNode(int key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public int getKey() {
+        return key;
+    }
+
+    @Override
+    public V getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + value;
+    }
+
+    static int height(IntTreeNode<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    static int size(IntTreeNode<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    static <N extends IntTreeNode<?, N>> N min(N node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    static <N extends IntTreeNode<?, N>> N max(N node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    static <N extends IntTreeNode<?, N>> N find(N node, int key) {
+        while (node != null && node.key != key) {
+            node = key < node.key ? node.left : node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Node with the largest key &lt;= key, or null
+     */
+    static <N extends IntTreeNode<?, N>> N floor(N node, int key) {
+        N best = null;
+        while (node != null) {
+            if (node.key == key) {
+                return node;
+            }
+            if (node.key < key) {
+                best = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Node with the smallest key &gt;= key, or null
+     */
+    static <N extends IntTreeNode<?, N>> N ceiling(N node, int key) {
+        N best = null;
+        while (node != null) {
+            if (node.key == key) {
+                return node;
+            }
+            if (node.key > key) {
+                best = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Number of keys strictly less than key
+     */
+    static int rank(IntTreeNode<?, ?> node, int key) {
+        int rank = 0;
+        while (node != null) {
+            if (key <= node.key) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Node with the index-th smallest key (0-based)
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     */
+    static <N extends IntTreeNode<?, N>> N select(N node, int index) {
+        if (index < 0 || index >= size(node)) {
+            throw new IndexOutOfBoundsException("index=" + index + " size=" + size(node));
+        }
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Number of keys in [from, to]
+     */
+    static int countInRange(IntTreeNode<?, ?> root, int from, int to) {
+        if (from > to) {
+            return 0;
+        }
+        int upTo = to == Integer.MAX_VALUE ? size(root) : rank(root, to + 1);
+        return upTo - rank(root, from);
+    }
+
+    static <V> IntTreeMap.Entry<V> nonEmpty(IntTreeMap.Entry<V> entry) {
+        if (entry == null) {
+            throw new NoSuchElementException("Map is empty");
+        }
+        return entry;
+    }
+
+    /**
+     * Unboxed view of an entry iterator's keys
+     */
+    static final class KeyIterator implements PrimitiveIterator.OfInt {
+        private final Iterator<? extends IntTreeMap.Entry<?>> entries;
+
+        KeyIterator(Iterator<? extends IntTreeMap.Entry<?>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            return entries.next().getKey();
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package datastructures.bst;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Persistent (Immutable) Balanced Ordered Map with int Keys
+ *
+ * An AVL tree whose nodes are never modified once built. put and remove leave
+ * this map untouched and return a new one: only the nodes on the path from the
+ * root to the change are copied (about 1.44 log2(n) of them), and every other
+ * subtree is shared between the old version and the new.
+ *
+ *   before:        50                after put(60):      50'
+ *                /    \                                /    \
+ *              30      80                            30      80'
+ *             /  \    /  \                          /  \    /  \
+ *           20   40  70   90                      20   40  70'  90
+ *                                                          /
+ *                                                        60
+ *
+ *   30, 20, 40 and 90 are shared; only 50, 80 and 70 were copied.
+ *
+ * Because a version can never change, it can be read by any number of threads
+ * without locks, and an iterator sees exactly the keys present when the version
+ * was created. {@link VersionedIntTreeMap} builds on this to give one writer and
+ * many lock-free readers. A version nobody references any more is reclaimed by
+ * the garbage collector together with the nodes only it used.
+ *
+ * Time Complexity (worst case):
+ * - put / remove: O(log n) time, O(log n) new nodes
+ * - get / containsKey / floor / ceiling / rank / select / countInRange: O(log n)
+ * - iteration: O(n) total
+ *
+ * Space Complexity: O(n) per version, O(log n) extra per derived version
+ */
+public final class PersistentIntTreeMap<V> implements Iterable<IntTreeMap.Entry<V>> {
+
+    /**
+     * Never modified after construction
+     */
+    private static final class Node<V> extends IntTreeNode<V, Node<V>> {
+        Node(int key, V value, Node<V> left, Node<V> right) {
+            super(key, value);
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private static final PersistentIntTreeMap<?> EMPTY = new PersistentIntTreeMap<>(null);
+
+    private final Node<V> root;
+
+    private PersistentIntTreeMap(Node<V> root) {
+        this.root = root;
+    }
+
+    /**
+     * The empty map; shared, since it can never change
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntTreeMap<V> empty() {
+        return (PersistentIntTreeMap<V>) EMPTY;
+    }
+
+    /**
+     * This map with key mapped to value
+     * Time Complexity: O(log n)
+     *
+     * @return the new version, or this map if key already maps to this exact value
+     */
+    public PersistentIntTreeMap<V> put(int key, V value) {
+        Node<V> newRoot = put(root, key, value);
+        return newRoot == root ? this : new PersistentIntTreeMap<>(newRoot);
+    }
+
+    /**
+     * This map without key
+     * Time Complexity: O(log n)
+     *
+     * @return the new version, or this map if key was absent
+     */
+    public PersistentIntTreeMap<V> remove(int key) {
+        Node<V> newRoot = remove(root, key);
+        return newRoot == root ? this : wrap(newRoot);
+    }
+
+    /**
+     * Value for key, or null if absent
+     * Time Complexity: O(log n)
+     */
+    public V get(int key) {
+        Node<V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Number of mappings
+     * Time Complexity: O(1)
+     */
+    public int size() {
+        return IntTreeNode.size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Height of the tree (0 when empty); at most about 1.44 log2(n)
+     */
+    public int height() {
+        return IntTreeNode.height(root);
+    }
+
+    /**
+     * Smallest key
+     *
+     * @throws NoSuchElementException if the map is empty
+     */
+    public int firstKey() {
+        return IntTreeNode.nonEmpty(firstEntry()).getKey();
+    }
+
+    /**
+     * Largest key
+     *
+     * @throws NoSuchElementException if the map is empty
+     */
+    public int lastKey() {
+        return IntTreeNode.nonEmpty(lastEntry()).getKey();
+    }
+
+    public IntTreeMap.Entry<V> firstEntry() {
+        return root == null ? null : IntTreeNode.min(root);
+    }
+
+    public IntTreeMap.Entry<V> lastEntry() {
+        return root == null ? null : IntTreeNode.max(root);
+    }
+
+    /**
+     * Entry with the largest key &lt;= key, or null
+     * Time Complexity: O(log n)
+     */
+    public IntTreeMap.Entry<V> floorEntry(int key) {
+        return IntTreeNode.floor(root, key);
+    }
+
+    /**
+     * Entry with the smallest key &gt;= key, or null
+     * Time Complexity: O(log n)
+     */
+    public IntTreeMap.Entry<V> ceilingEntry(int key) {
+        return IntTreeNode.ceiling(root, key);
+    }
+
+    /**
+     * Number of keys strictly less than key
+     * Time Complexity: O(log n)
+     */
+    public int rank(int key) {
+        return IntTreeNode.rank(root, key);
+    }
+
+    /**
+     * Entry with the index-th smallest key (0-based)
+     * Time Complexity: O(log n)
+     *
+     * @throws IndexOutOfBoundsException if index is not in [0, size)
+     */
+    public IntTreeMap.Entry<V> select(int index) {
+        return IntTreeNode.select(root, index);
+    }
+
+    /**
+     * Number of keys in [from, to]
+     * Time Complexity: O(log n)
+     */
+    public int countInRange(int from, int to) {
+        return IntTreeNode.countInRange(root, from, to);
+    }
+
+    /**
+     * Entries in ascending key order. Never affected by later puts or removes,
+     * which create other versions.
+     */
+    @Override
+    public Iterator<IntTreeMap.Entry<V>> iterator() {
+        return new EntryIterator(Integer.MIN_VALUE, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Entries with keys in [from, to), ascending
+     */
+    public Iterator<IntTreeMap.Entry<V>> iterator(int from, int to) {
+        return new EntryIterator(from, to, false);
+    }
+
+    /**
+     * Keys in ascending order, unboxed
+     */
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new IntTreeNode.KeyIterator(iterator());
+    }
+
+    /**
+     * Keys in [from, to), ascending, unboxed
+     */
+    public PrimitiveIterator.OfInt keyIterator(int from, int to) {
+        return new IntTreeNode.KeyIterator(iterator(from, to));
+    }
+
+    /**
+     * All keys in ascending order
+     * Time Complexity: O(n)
+     */
+    public int[] keys() {
+        int[] keys = new int[size()];
+        int i = 0;
+        for (PrimitiveIterator.OfInt it = keyIterator(); it.hasNext(); ) {
+            keys[i++] = it.nextInt();
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Iterator<IntTreeMap.Entry<V>> it = iterator(); it.hasNext(); ) {
+            sb.append(it.next());
+            if (it.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    private Node<V> find(int key) {
+        return IntTreeNode.find(root, key);
+    }
+
+    private static <V> PersistentIntTreeMap<V> wrap(Node<V> root) {
+        return root == null ? empty() : new PersistentIntTreeMap<>(root);
+    }
+
+    // The updates recurse, but only to the height of the tree (under 45 levels for
+    // any int-keyed map), and each level returns the copied node for its parent.
+
+    private static <V> Node<V> put(Node<V> node, int key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        if (key < node.key) {
+            Node<V> left = put(node.left, key, value);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (key > node.key) {
+            Node<V> right = put(node.right, key, value);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        return value == node.value ? node : new Node<>(key, value, node.left, node.right);
+    }
+
+    private static <V> Node<V> remove(Node<V> node, int key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            Node<V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (key > node.key) {
+            Node<V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Two children: the successor takes this node's place
+        Node<V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeMin(node.right));
+    }
+
+    private static <V> Node<V> removeMin(Node<V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    /**
+     * New node for key with the given subtrees, whose heights differ by at most two,
+     * rotated into AVL balance. Rotations build new nodes rather than relinking
+     * old ones, which other versions may still be using.
+     */
+    private static <V> Node<V> balance(int key, V value, Node<V> left, Node<V> right) {
+        int balance = IntTreeNode.height(left) - IntTreeNode.height(right);
+        if (balance > 1) {
+            if (IntTreeNode.height(left.left) < IntTreeNode.height(left.right)) {
+                // Left-right case
+                Node<V> pivot = left.right;
+                return new Node<>(pivot.key, pivot.value,
+                        new Node<>(left.key, left.value, left.left, pivot.left),
+                        new Node<>(key, value, pivot.right, right));
+            }
+            return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+        }
+        if (balance < -1) {
+            if (IntTreeNode.height(right.right) < IntTreeNode.height(right.left)) {
+                // Right-left case
+                Node<V> pivot = right.left;
+                return new Node<>(pivot.key, pivot.value,
+                        new Node<>(key, value, left, pivot.left),
+                        new Node<>(right.key, right.value, pivot.right, right.right));
+            }
+            return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    /**
+     * In-order walk with an explicit stack of the ancestors still to visit; nodes
+     * have no parent pointers, since a node can belong to many versions
+     */
+    private final class EntryIterator implements Iterator<IntTreeMap.Entry<V>> {
+        private final int to;
+        private final boolean unbounded;
+        @SuppressWarnings("unchecked")
+        private final Node<V>[] stack = (Node<V>[]) new Node<?>[IntTreeNode.height(root)];
+        private int depth;
+
+        EntryIterator(int from, int to, boolean unbounded) {
+            this.to = to;
+            this.unbounded = unbounded;
+            // Stack the path to the first key >= from, keeping the nodes still ahead
+            Node<V> node = root;
+            while (node != null) {
+                if (node.key >= from) {
+                    stack[depth++] = node;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0 && (unbounded || stack[depth - 1].key < to);
+        }
+
+        @Override
+        public IntTreeMap.Entry<V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<V> current = stack[--depth];
+            stack[depth] = null;
+            for (Node<V> node = current.right; node != null; node = node.left) {
+                stack[depth++] = node;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package datastructures.bst;
+
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Ordered int-keyed Map with Lock-Free Snapshot Reads (MVCC)
+ *
+ * Holds the current version of a {@link PersistentIntTreeMap} in a volatile
+ * field. A writer derives the next version by path copying and publishes it with
+ * a single volatile write; the versions it replaces are never modified.
+ *
+ * Readers never block and never retry:
+ * - get / containsKey / size read whichever version is current
+ * - snapshot() returns the current version itself, so any number of lookups and
+ *   iterations on it see one consistent point in time while writers move on
+ *
+ *   VersionedIntTreeMap<String> map = new VersionedIntTreeMap<>();
+ *   map.put(1, "a");
+ *   PersistentIntTreeMap<String> view = map.snapshot();
+ *   map.put(2, "b");            // view still holds only 1=a
+ *
+ * Writers are serialized by this object's lock so that no update is lost; they
+ * never wait for readers. Old versions need no bookkeeping: once no snapshot
+ * refers to one, the garbage collector reclaims the nodes only it used.
+ *
+ * Time Complexity:
+ * - snapshot: O(1)
+ * - get / containsKey: O(log n), wait-free
+ * - put / remove: O(log n), O(log n) new nodes
+ */
+public class VersionedIntTreeMap<V> {
+
+    private volatile PersistentIntTreeMap<V> current;
+    private long version;   // Guarded by this
+
+    public VersionedIntTreeMap() {
+        this(PersistentIntTreeMap.empty());
+    }
+
+    public VersionedIntTreeMap(PersistentIntTreeMap<V> initial) {
+        this.current = initial;
+    }
+
+    /**
+     * The current version; immutable, so it can be read and iterated freely
+     * Time Complexity: O(1)
+     */
+    public PersistentIntTreeMap<V> snapshot() {
+        return current;
+    }
+
+    public V get(int key) {
+        return current.get(key);
+    }
+
+    public boolean containsKey(int key) {
+        return current.containsKey(key);
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    public boolean isEmpty() {
+        return current.isEmpty();
+    }
+
+    /**
+     * Time Complexity: O(log n)
+     *
+     * @return the previous value, or null if key was absent
+     */
+    public synchronized V put(int key, V value) {
+        PersistentIntTreeMap<V> before = current;
+        publish(before.put(key, value));
+        return before.get(key);
+    }
+
+    /**
+     * Time Complexity: O(log n)
+     *
+     * @return the removed value, or null if key was absent
+     */
+    public synchronized V remove(int key) {
+        PersistentIntTreeMap<V> before = current;
+        publish(before.remove(key));
+        return before.get(key);
+    }
+
+    /**
+     * Apply several changes as one step: readers see either none or all of them.
+     *
+     *   map.update(m -> m.remove(from).put(to, value));
+     *
+     * @return the version now current
+     */
+    public synchronized PersistentIntTreeMap<V> update(UnaryOperator<PersistentIntTreeMap<V>> change) {
+        publish(Objects.requireNonNull(change.apply(current), "change returned null"));
+        return current;
+    }
+
+    /**
+     * Number of versions published so far, i.e. writes that changed the map
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    private void publish(PersistentIntTreeMap<V> next) {
+        if (next != current) {
+            current = next;     // The one volatile write; the new nodes are visible to any reader that sees it
+            version++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return current.toString();
+    }
+}
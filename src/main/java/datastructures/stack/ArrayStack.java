@@ -1,17 +1,21 @@
 package datastructures.stack;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.EmptyStackException;
 
 /**
  * Array-Based Stack Implementation
  *
  * A stack implemented using a fixed-size array with dynamic resizing.
- * Follows LIFO (Last In, First Out) principle.
+ * Follows LIFO (Last In, First Out) principle. When and by how much the array
+ * grows and shrinks is decided by a {@link GrowthPolicy} (doubling by default).
  *
  * Time Complexity:
  * - Push: O(1) amortized (O(n) when resizing)
  * - Pop: O(1)
  * - Peek: O(1)
+ * - pushAll / popN: O(k) for k elements, one arraycopy
  * - isEmpty: O(1)
  * - Size: O(1)
  *
@@ -20,33 +24,38 @@ import java.util.EmptyStackException;
 public class ArrayStack<T> {
 
     private static final int DEFAULT_CAPACITY = 10;
-    private static final int RESIZE_FACTOR = 2;
 
     private T[] array;
     private int top;        // Index of top element
     private int capacity;
+    private final GrowthPolicy policy;
 
     /**
      * Constructor with default capacity
      */
-    @SuppressWarnings("unchecked")
     public ArrayStack() {
-        this.capacity = DEFAULT_CAPACITY;
-        this.array = (T[]) new Object[capacity];
-        this.top = -1;  // Empty stack
+        this(DEFAULT_CAPACITY);
     }
 
     /**
      * Constructor with custom capacity
      */
-    @SuppressWarnings("unchecked")
     public ArrayStack(int capacity) {
+        this(capacity, GrowthPolicy.doubling());
+    }
+
+    /**
+     * Constructor with custom capacity and growth policy
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayStack(int capacity, GrowthPolicy policy) {
         if (capacity <= 0) {
             throw new IllegalArgumentException("Capacity must be positive");
         }
         this.capacity = capacity;
         this.array = (T[]) new Object[capacity];
-        this.top = -1;
+        this.top = -1;  // Empty stack
+        this.policy = policy;
     }
 
     /**
@@ -56,12 +65,43 @@ public class ArrayStack<T> {
     public void push(T value) {
         // Resize if full
         if (top == capacity - 1) {
-            resize();
+            resize(policy.grow(capacity, capacity + 1));
         }
 
         array[++top] = value;
     }
 
+    /**
+     * Push all values; values[values.length - 1] ends up on top
+     * Time Complexity: O(k), at most one resize
+     */
+    public void pushAll(T[] values) {
+        pushAll(values, 0, values.length);
+    }
+
+    /**
+     * Push values[offset .. offset + length - 1]; the last one ends up on top
+     * Time Complexity: O(k), at most one resize
+     */
+    public void pushAll(T[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > values.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " length=" + length + " size=" + values.length);
+        }
+        ensureCapacity(top + 1 + length);
+        System.arraycopy(values, offset, array, top + 1, length);
+        top += length;
+    }
+
+    /**
+     * Push every element in iteration order; the last one ends up on top
+     * Time Complexity: O(k), at most one resize
+     */
+    @SuppressWarnings("unchecked")
+    public void pushAll(Collection<? extends T> values) {
+        Object[] copy = values.toArray();
+        pushAll((T[]) copy, 0, copy.length);
+    }
+
     /**
      * Pop and return the top element
      * Time Complexity: O(1)
@@ -77,14 +117,34 @@ public class ArrayStack<T> {
         array[top] = null;  // Help garbage collection
         top--;
 
-        // Shrink if needed (optional optimization)
-        if (top > 0 && top < capacity / 4) {
-            shrink();
-        }
+        // Shrink if the policy says so
+        shrinkIfNeeded();
 
         return value;
     }
 
+    /**
+     * Pop the top n elements into dest[offset .. offset + n - 1], in the order they
+     * were pushed (the former top lands at offset + n - 1), so pushAll(dest, offset, n)
+     * restores the stack.
+     * Time Complexity: O(k), at most one shrink
+     *
+     * @throws EmptyStackException if the stack holds fewer than n elements
+     */
+    public void popN(T[] dest, int offset, int n) {
+        if (n < 0 || offset < 0 || offset + n > dest.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " n=" + n + " size=" + dest.length);
+        }
+        if (n > size()) {
+            throw new EmptyStackException();
+        }
+        top -= n;
+        System.arraycopy(array, top + 1, dest, offset, n);
+        Arrays.fill(array, top + 1, top + 1 + n, null);  // Help garbage collection
+
+        shrinkIfNeeded();
+    }
+
     /**
      * Return the top element without removing it
      * Time Complexity: O(1)
@@ -122,14 +182,42 @@ public class ArrayStack<T> {
         return capacity;
     }
 
+    /**
+     * Get the growth policy
+     */
+    public GrowthPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Grow (as the policy allows) so that at least minCapacity elements fit
+     * Time Complexity: O(n) if it resizes, O(1) otherwise
+     *
+     * @throws IllegalStateException if the policy caps capacity below minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > capacity) {
+            resize(policy.grow(capacity, minCapacity));
+        }
+    }
+
+    /**
+     * Shrink capacity to the current size (at least 1)
+     * Time Complexity: O(n)
+     */
+    public void trimToSize() {
+        int target = Math.max(1, size());
+        if (target != capacity) {
+            resize(target);
+        }
+    }
+
     /**
      * Clear all elements from stack
      * Time Complexity: O(n)
      */
     public void clear() {
-        for (int i = 0; i <= top; i++) {
-            array[i] = null;  // Help garbage collection
-        }
+        Arrays.fill(array, 0, top + 1, null);  // Help garbage collection
         top = -1;
     }
 
@@ -157,33 +245,29 @@ public class ArrayStack<T> {
     }
 
     /**
-     * Resize array when full (double the capacity)
-     * Time Complexity: O(n)
+     * Ask the policy whether to give memory back after removals
+     * Time Complexity: O(1), O(n) when it shrinks
      */
-    @SuppressWarnings("unchecked")
-    private void resize() {
-        capacity *= RESIZE_FACTOR;
-        T[] newArray = (T[]) new Object[capacity];
-
-        // Copy elements
-        System.arraycopy(array, 0, newArray, 0, top + 1);
-
-        array = newArray;
+    private void shrinkIfNeeded() {
+        int target = policy.shrink(capacity, top + 1);
+        if (target < capacity) {
+            resize(target);
+        }
     }
 
     /**
-     * Shrink array when too empty (halve the capacity)
+     * Move the elements into an array of the given capacity
      * Time Complexity: O(n)
      */
     @SuppressWarnings("unchecked")
-    private void shrink() {
-        capacity /= RESIZE_FACTOR;
-        T[] newArray = (T[]) new Object[capacity];
+    private void resize(int newCapacity) {
+        T[] newArray = (T[]) new Object[newCapacity];
 
         // Copy elements
         System.arraycopy(array, 0, newArray, 0, top + 1);
 
         array = newArray;
+        capacity = newCapacity;
     }
 
     /**
@@ -0,0 +1,285 @@
+package datastructures.stack;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.EmptyStackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-Free Concurrent Stack (Treiber stack with elimination backoff)
+ *
+ * The thread-safe counterpart of {@link LinkedListStack}: the same singly linked
+ * nodes, but the top pointer is only ever changed with compare-and-set, so no
+ * thread ever holds a lock and a stalled thread cannot block the others.
+ *
+ * Under contention every push and pop competes for that one top pointer. When a
+ * CAS on it fails, the thread backs off into an elimination array instead of
+ * retrying straight away:
+ * - a pusher parks its node in a random slot and spins briefly
+ * - a popper that finds a parked node in its random slot takes it
+ * A push and a pop that meet there cancel out (the pop returns exactly what the
+ * push would have put on top) without ever touching the top pointer, so the
+ * busier the stack, the more operations complete off the hot spot. A pusher
+ * nobody meets takes its node back and retries on the top pointer.
+ *
+ * Nodes are never reused, so the garbage collector rules out the ABA problem.
+ *
+ * Time Complexity:
+ * - Push: O(1) expected (lock-free)
+ * - Pop: O(1) expected (lock-free)
+ * - Peek: O(1)
+ * - isEmpty: O(1)
+ * - Size: O(n), a weakly consistent traversal
+ *
+ * Space Complexity: O(n) plus the elimination array
+ */
+public class ConcurrentStack<T> {
+
+    /**
+     * Node class represents each element in the stack; immutable once published
+     */
+    private static final class Node<T> {
+        final T data;
+        Node<T> next;
+
+        Node(T data) {
+            this.data = data;
+        }
+    }
+
+    private static final VarHandle TOP;
+
+    static {
+        try {
+            TOP = MethodHandles.lookup().findVarHandle(ConcurrentStack.class, "top", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Slots are SLOT_SPREAD references apart so two slots never share a cache line
+    private static final int SLOT_SPREAD = 16;
+    private static final int DEFAULT_SPINS = 128;
+
+    private volatile Node<T> top;   // Top of the stack
+
+    private final AtomicReferenceArray<Node<T>> elimination;
+    private final int slots;
+    private final int spins;
+    private final LongAdder eliminated = new LongAdder();
+
+    /**
+     * Constructor - one elimination slot per two processors (at least one, at most 32)
+     */
+    public ConcurrentStack() {
+        this(Math.max(1, Math.min(32, Runtime.getRuntime().availableProcessors() / 2)), DEFAULT_SPINS);
+    }
+
+    /**
+     * Constructor with a custom elimination array
+     *
+     * @param slots number of elimination slots; 0 turns elimination off (plain Treiber stack)
+     * @param spins how many spin-wait rounds a pusher waits in a slot for a popper
+     */
+    public ConcurrentStack(int slots, int spins) {
+        if (slots < 0 || spins < 0) {
+            throw new IllegalArgumentException("Slots and spins must not be negative");
+        }
+        this.slots = slots;
+        this.spins = spins;
+        this.elimination = new AtomicReferenceArray<>(Math.max(1, slots * SLOT_SPREAD));
+    }
+
+    /**
+     * Push an element onto the stack
+     * Time Complexity: O(1) expected
+     */
+    public void push(T value) {
+        Node<T> node = new Node<>(value);
+        while (true) {
+            Node<T> current = top;
+            node.next = current;
+            if (TOP.compareAndSet(this, current, node)) {
+                return;
+            }
+            // Lost the race for the top pointer: try to hand the node to a popper instead
+            if (slots > 0 && offer(node)) {
+                eliminated.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pop and return the top element
+     * Time Complexity: O(1) expected
+     *
+     * @throws EmptyStackException if stack is empty
+     */
+    public T pop() {
+        Node<T> node = popNode();
+        if (node == null) {
+            throw new EmptyStackException();
+        }
+        return node.data;
+    }
+
+    /**
+     * Pop and return the top element, or null if the stack is empty
+     * Time Complexity: O(1) expected
+     */
+    public T poll() {
+        Node<T> node = popNode();
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Return the top element without removing it
+     * Time Complexity: O(1)
+     *
+     * @throws EmptyStackException if stack is empty
+     */
+    public T peek() {
+        Node<T> current = top;
+        if (current == null) {
+            throw new EmptyStackException();
+        }
+        return current.data;
+    }
+
+    /**
+     * Check if stack is empty
+     * Time Complexity: O(1)
+     */
+    public boolean isEmpty() {
+        return top == null;
+    }
+
+    /**
+     * Count the elements; concurrent pushes and pops may or may not be seen
+     * Time Complexity: O(n)
+     */
+    public int size() {
+        int count = 0;
+        for (Node<T> current = top; current != null; current = current.next) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Clear all elements from stack in one atomic step
+     * Time Complexity: O(1)
+     */
+    public void clear() {
+        top = null;
+    }
+
+    /**
+     * Search for an element (returns position from top, 1-indexed) in a snapshot
+     * of the stack taken when the search starts
+     * Time Complexity: O(n)
+     *
+     * @return position from top (1-indexed), or -1 if not found
+     */
+    public int search(T value) {
+        int position = 1;
+        for (Node<T> current = top; current != null; current = current.next) {
+            if (current.data.equals(value)) {
+                return position;
+            }
+            position++;
+        }
+        return -1;  // Not found
+    }
+
+    /**
+     * Check if stack contains an element
+     * Time Complexity: O(n)
+     */
+    public boolean contains(T value) {
+        return search(value) != -1;
+    }
+
+    /**
+     * Number of push/pop pairs that met in the elimination array so far
+     */
+    public long eliminations() {
+        return eliminated.sum();
+    }
+
+    /**
+     * String representation of stack (a snapshot, top first)
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (Node<T> current = top; current != null; current = current.next) {
+            sb.append(current.data);
+            if (current.next != null) {
+                sb.append(", ");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    private Node<T> popNode() {
+        while (true) {
+            Node<T> current = top;
+            if (current == null) {
+                return null;
+            }
+            if (TOP.compareAndSet(this, current, current.next)) {
+                return current;
+            }
+            // Lost the race for the top pointer: look for a pusher waiting to hand over
+            if (slots > 0) {
+                Node<T> taken = take();
+                if (taken != null) {
+                    eliminated.increment();
+                    return taken;
+                }
+            }
+        }
+    }
+
+    /**
+     * Park node in a random empty slot and wait for a popper to take it.
+     * Both operations take effect when the popper's CAS empties the slot.
+     *
+     * @return true if a popper took the node, false if it is still ours
+     */
+    private boolean offer(Node<T> node) {
+        int slot = randomSlot();
+        if (!elimination.compareAndSet(slot, null, node)) {
+            return false;
+        }
+        for (int i = 0; i < spins; i++) {
+            if (elimination.get(slot) != node) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        // Withdraw the offer; failing means a popper took it in the meantime
+        return !elimination.compareAndSet(slot, node, null);
+    }
+
+    /**
+     * Take the node a pusher parked in a random slot, if there is one
+     */
+    private Node<T> take() {
+        int slot = randomSlot();
+        Node<T> node = elimination.get(slot);
+        if (node != null && elimination.compareAndSet(slot, node, null)) {
+            return node;
+        }
+        return null;
+    }
+
+    private int randomSlot() {
+        return ThreadLocalRandom.current().nextInt(slots) * SLOT_SPREAD;
+    }
+}
@@ -0,0 +1,109 @@
+package datastructures.stack;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark: ConcurrentStack vs synchronized LinkedListStack vs ConcurrentLinkedDeque
+ *
+ * Every thread repeatedly pushes a value and pops one, so the stack stays small
+ * and all threads fight over its top. Runs at 1, 2, 4, ... 64 threads and reports
+ * throughput in million operations per second (one push or pop is one operation),
+ * plus how many push/pop pairs ConcurrentStack eliminated.
+ *
+ * Usage: ConcurrentStackBenchmark [millisPerRun] [maxThreads]
+ */
+public class ConcurrentStackBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        System.out.printf("%d processors, %d ms per run%n", Runtime.getRuntime().availableProcessors(), millis);
+        System.out.printf("%7s %14s %14s %14s %14s %12s%n",
+                "threads", "elimination", "treiber", "synchronized", "CLDeque", "eliminated");
+
+        // Warm-up
+        runAll(4, millis / 2);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            runAll(threads, millis);
+        }
+    }
+
+    private static void runAll(int threads, long millis) throws InterruptedException {
+        ConcurrentStack<Integer> elimination = new ConcurrentStack<>();
+        double withElimination = run(threads, millis, value -> {
+            elimination.push(value);
+            elimination.pop();
+        });
+
+        ConcurrentStack<Integer> treiber = new ConcurrentStack<>(0, 0);
+        double plain = run(threads, millis, value -> {
+            treiber.push(value);
+            treiber.pop();
+        });
+
+        LinkedListStack<Integer> locked = new LinkedListStack<>();
+        double synchronizedStack = run(threads, millis, value -> {
+            synchronized (locked) {
+                locked.push(value);
+            }
+            synchronized (locked) {
+                locked.pop();
+            }
+        });
+
+        ConcurrentLinkedDeque<Integer> deque = new ConcurrentLinkedDeque<>();
+        double dequeStack = run(threads, millis, value -> {
+            deque.push(value);
+            deque.pop();
+        });
+
+        System.out.printf("%7d %10.2f M/s %10.2f M/s %10.2f M/s %10.2f M/s %12d%n",
+                threads, withElimination, plain, synchronizedStack, dequeStack, elimination.eliminations());
+    }
+
+    /**
+     * Run pushPop on the given number of threads for millis and return Mops/s
+     */
+    private static double run(int threads, long millis, PushPop pushPop) throws InterruptedException {
+        LongAdder pairs = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        long[] deadline = new long[1];
+
+        for (int t = 0; t < threads; t++) {
+            int base = 1_000 + t * 1_000_000;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                int value = base;
+                while ((done & 1023) != 0 || System.nanoTime() < deadline[0]) {
+                    pushPop.run(value++);
+                    done++;
+                }
+                pairs.add(done);
+            }, "stack-bench-" + t);
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        deadline[0] = begin + millis * 1_000_000;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long nanos = System.nanoTime() - begin;
+        return 2.0 * pairs.sum() * 1_000 / nanos;
+    }
+
+    private interface PushPop {
+        void run(int value);
+    }
+}
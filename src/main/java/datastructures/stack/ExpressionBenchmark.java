@@ -0,0 +1,110 @@
+package datastructures.stack;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark: one formula evaluated over many rows of columnar data
+ *
+ *   price * qty * (1 - discount) + shipping    (qty is a long column)
+ *
+ * - hand-written Java loop (the native baseline)
+ * - Expression batch evaluation over the columns
+ * - Expression.evaluate once per row
+ * - the old approach: build a postfix string per row, split and parse it
+ *
+ * Usage: ExpressionBenchmark [rows] [rounds]
+ */
+public class ExpressionBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        double[] price = new double[rows];
+        long[] qty = new long[rows];
+        double[] discount = new double[rows];
+        double[] shipping = new double[rows];
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            price[i] = 1 + random.nextInt(10_000) / 100.0;
+            qty[i] = 1 + random.nextInt(20);
+            discount[i] = random.nextInt(30) / 100.0;
+            shipping[i] = random.nextInt(1_000) / 100.0;
+        }
+        double[] out = new double[rows];
+
+        Expression expression = Expression.compile("price * qty * (1 - discount) + shipping",
+                Map.of("qty", Expression.Type.LONG));
+        System.out.println(expression.disassemble());
+
+        for (int pass = 0; pass < 2; pass++) {
+            System.out.println(pass == 0 ? "-- warm-up --" : "-- measured --");
+            long rowCount = (long) rows * rounds;
+
+            measure("hand-written loop", rowCount, () -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < rows; i++) {
+                        out[i] = price[i] * qty[i] * (1 - discount[i]) + shipping[i];
+                    }
+                }
+                return out[rows - 1];
+            });
+            measure("Expression batch", rowCount, () -> {
+                for (int r = 0; r < rounds; r++) {
+                    expression.evaluate(out, price, qty, discount, shipping);
+                }
+                return out[rows - 1];
+            });
+            measure("Expression per row", rowCount, () -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < rows; i++) {
+                        out[i] = expression.evaluate(price[i], qty[i], discount[i], shipping[i]);
+                    }
+                }
+                return out[rows - 1];
+            });
+
+            // Re-parsing every row is so slow that a slice is enough to measure it
+            int slice = Math.min(rows, 200_000);
+            measure("re-parse per row", slice, () -> {
+                double sum = 0;
+                for (int i = 0; i < slice; i++) {
+                    sum += evaluatePostfix(price[i] + " " + qty[i] + " * 1 " + discount[i] + " - * " + shipping[i] + " +");
+                }
+                return sum;
+            });
+        }
+    }
+
+    /**
+     * What StackDemo.evaluatePostfix used to do, widened to doubles
+     */
+    private static double evaluatePostfix(String expr) {
+        DoubleArrayStack stack = new DoubleArrayStack();
+        for (String token : expr.split(" ")) {
+            switch (token) {
+                case "+": stack.push(stack.pop() + stack.pop()); break;
+                case "*": stack.push(stack.pop() * stack.pop()); break;
+                case "-": {
+                    double b = stack.pop();
+                    stack.push(stack.pop() - b);
+                    break;
+                }
+                default: stack.push(Double.parseDouble(token));
+            }
+        }
+        return stack.pop();
+    }
+
+    private static void measure(String name, long rows, Workload workload) {
+        long start = System.nanoTime();
+        double checksum = workload.run();
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-22s %8.2f ns/row  (checksum %.2f)%n", name, (double) nanos / rows, checksum);
+    }
+
+    private interface Workload {
+        double run();
+    }
+}
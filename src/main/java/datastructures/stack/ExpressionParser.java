@@ -0,0 +1,398 @@
+package datastructures.stack;
+
+import datastructures.stack.Expression.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser from expression source to a typed syntax tree, for {@link Expression}
+ *
+ * Infix source goes through the shunting-yard algorithm with two stacks: an
+ * operator stack, and an operand stack of subtrees that every reduction pops
+ * its arguments from and pushes its result onto. Postfix source needs only the
+ * operand stack.
+ *
+ * Grammar (lowest precedence first):
+ * - a + b, a - b
+ * - a * b, a / b, a % b
+ * - -a (unary minus)
+ * - a ^ b (right-associative, always double)
+ * - numbers, variables, (expr), abs(x), sqrt(x), exp(x), log(x), min(a, b, ...), max(a, b, ...)
+ *
+ * Numbers without '.' or exponent are longs. Operators on two longs stay long
+ * (integer division, like Java); anything involving a double is double.
+ *
+ * Time Complexity: O(n) for n characters of source
+ */
+final class ExpressionParser {
+
+    /**
+     * A syntax tree node with its static result type
+     */
+    abstract static class Node {
+        final Type type;
+
+        Node(Type type) {
+            this.type = type;
+        }
+    }
+
+    static final class Constant extends Node {
+        final long longValue;
+        final double doubleValue;
+
+        Constant(long value) {
+            super(Type.LONG);
+            this.longValue = value;
+            this.doubleValue = value;
+        }
+
+        Constant(double value) {
+            super(Type.DOUBLE);
+            this.longValue = (long) value;
+            this.doubleValue = value;
+        }
+    }
+
+    static final class Variable extends Node {
+        final int slot;
+
+        Variable(int slot, Type type) {
+            super(type);
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Operator or function applied to one or two operands
+     */
+    static final class Apply extends Node {
+        final String operator;
+        final Node left;
+        final Node right;   // null for unary operators and one-argument functions
+
+        Apply(String operator, Node left, Node right, Type type) {
+            super(type);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private static final String NEGATE = "neg";
+    private static final String CALL_MARKER = "call(";  // Open paren of a function call, above its name
+
+    private final String source;
+    private final Map<String, Type> declaredTypes;
+    private final List<String> variables = new ArrayList<>();
+    private final List<Type> variableTypes = new ArrayList<>();
+    private int pos;
+
+    ExpressionParser(String source, Map<String, Type> declaredTypes) {
+        this.source = source;
+        this.declaredTypes = declaredTypes;
+    }
+
+    /**
+     * Variable names in slot order (order of first appearance)
+     */
+    List<String> variables() {
+        return variables;
+    }
+
+    List<Type> variableTypes() {
+        return variableTypes;
+    }
+
+    /**
+     * Parse infix source with the shunting-yard algorithm
+     */
+    Node parseInfix() {
+        ArrayStack<Node> operands = new ArrayStack<>();
+        ArrayStack<String> operators = new ArrayStack<>();
+        IntArrayStack argCounts = new IntArrayStack();   // One per open function call
+        boolean expectOperand = true;
+
+        String token;
+        while ((token = nextToken()) != null) {
+            char first = token.charAt(0);
+            if (expectOperand) {
+                if (Character.isDigit(first) || first == '.') {
+                    operands.push(number(token));
+                    expectOperand = false;
+                } else if (isIdentifierStart(first)) {
+                    if (peekChar() == '(') {
+                        nextToken();
+                        checkFunction(token);
+                        operators.push(token);
+                        operators.push(CALL_MARKER);
+                        argCounts.push(1);
+                    } else {
+                        operands.push(variable(token));
+                        expectOperand = false;
+                    }
+                } else if (token.equals("(")) {
+                    operators.push("(");
+                } else if (token.equals("-")) {
+                    operators.push(NEGATE);
+                } else if (token.equals("+")) {
+                    continue;   // Unary plus
+                } else {
+                    throw error("Expected a number, variable or '('", token);
+                }
+            } else if (token.equals(")") || token.equals(",")) {
+                while (!operators.isEmpty() && !isOpenParen(operators.peek())) {
+                    reduce(operands, operators.pop());
+                }
+                if (operators.isEmpty()) {
+                    throw error("Unbalanced", token);
+                }
+                boolean call = operators.peek().equals(CALL_MARKER);
+                if (token.equals(",")) {
+                    if (!call) {
+                        throw error("',' outside a function call", token);
+                    }
+                    argCounts.push(argCounts.pop() + 1);
+                    expectOperand = true;
+                    continue;
+                }
+                operators.pop();
+                if (call) {
+                    callFunction(operands, operators.pop(), argCounts.pop());
+                }
+            } else if (isBinary(token)) {
+                while (!operators.isEmpty() && shouldReduceBefore(operators.peek(), token)) {
+                    reduce(operands, operators.pop());
+                }
+                operators.push(token);
+                expectOperand = true;
+            } else {
+                throw error("Expected an operator", token);
+            }
+        }
+
+        if (expectOperand) {
+            throw error("Unexpected end of expression", "");
+        }
+        while (!operators.isEmpty()) {
+            String op = operators.pop();
+            if (isOpenParen(op)) {
+                throw error("Unclosed '('", "");
+            }
+            reduce(operands, op);
+        }
+        return single(operands);
+    }
+
+    /**
+     * Parse space-separated postfix source, e.g. "5 3 + 2 *". A '-' directly followed by a digit
+     * or '.' is the sign of a number ("5 -3 +"), not the subtraction operator.
+     */
+    Node parsePostfix() {
+        ArrayStack<Node> operands = new ArrayStack<>();
+        String token;
+        while ((token = nextToken()) != null) {
+            char first = token.charAt(0);
+            if (Character.isDigit(first) || first == '.') {
+                operands.push(number(token));
+            } else if (token.equals("-") && pos < source.length()
+                    && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                operands.push(number("-" + nextToken()));
+            } else if (isIdentifierStart(first)) {
+                if (isFunction(token)) {
+                    callFunction(operands, token, token.equals("min") || token.equals("max") ? 2 : 1);
+                } else {
+                    operands.push(variable(token));
+                }
+            } else if (isBinary(token)) {
+                reduce(operands, token);
+            } else {
+                throw error("Unexpected token", token);
+            }
+        }
+        return single(operands);
+    }
+
+    private Node single(ArrayStack<Node> operands) {
+        if (operands.size() != 1) {
+            throw error(operands.isEmpty() ? "Empty expression" : "Missing operator", "");
+        }
+        return operands.pop();
+    }
+
+    /**
+     * Pop the operands of op, push the subtree applying it
+     */
+    private void reduce(ArrayStack<Node> operands, String op) {
+        if (op.equals(NEGATE)) {
+            Node operand = pop(operands, op);
+            operands.push(new Apply(NEGATE, operand, null, operand.type));
+            return;
+        }
+        Node right = pop(operands, op);
+        Node left = pop(operands, op);
+        Type type = op.equals("^") ? Type.DOUBLE : widest(left, right);
+        operands.push(new Apply(op, left, right, type));
+    }
+
+    private void callFunction(ArrayStack<Node> operands, String function, int args) {
+        boolean variadic = function.equals("min") || function.equals("max");
+        if (variadic ? args < 2 : args != 1) {
+            throw error(function + " takes " + (variadic ? "two or more arguments" : "one argument"), function);
+        }
+        if (!variadic) {
+            Node operand = pop(operands, function);
+            Type type = function.equals("abs") ? operand.type : Type.DOUBLE;
+            operands.push(new Apply(function, operand, null, type));
+            return;
+        }
+        // min(a, b, c) becomes min(min(a, b), c)
+        Node[] nodes = new Node[args];
+        for (int i = args - 1; i >= 0; i--) {
+            nodes[i] = pop(operands, function);
+        }
+        Node result = nodes[0];
+        for (int i = 1; i < args; i++) {
+            result = new Apply(function, result, nodes[i], widest(result, nodes[i]));
+        }
+        operands.push(result);
+    }
+
+    private Node pop(ArrayStack<Node> operands, String op) {
+        if (operands.isEmpty()) {
+            throw error("Missing operand for", op);
+        }
+        return operands.pop();
+    }
+
+    private Node number(String token) {
+        try {
+            if (token.indexOf('.') >= 0 || token.indexOf('e') >= 0 || token.indexOf('E') >= 0) {
+                return new Constant(Double.parseDouble(token));
+            }
+            return new Constant(Long.parseLong(token));
+        } catch (NumberFormatException e) {
+            throw error("Bad number", token);
+        }
+    }
+
+    private Node variable(String name) {
+        int slot = variables.indexOf(name);
+        if (slot < 0) {
+            slot = variables.size();
+            variables.add(name);
+            variableTypes.add(declaredTypes.getOrDefault(name, Type.DOUBLE));
+        }
+        return new Variable(slot, variableTypes.get(slot));
+    }
+
+    private static Type widest(Node a, Node b) {
+        return a.type == Type.LONG && b.type == Type.LONG ? Type.LONG : Type.DOUBLE;
+    }
+
+    private static boolean shouldReduceBefore(String stacked, String incoming) {
+        if (isOpenParen(stacked)) {
+            return false;
+        }
+        int stackedPrecedence = precedence(stacked);
+        int incomingPrecedence = precedence(incoming);
+        // ^ is right-associative: a ^ b ^ c is a ^ (b ^ c)
+        return incoming.equals("^") ? stackedPrecedence > incomingPrecedence : stackedPrecedence >= incomingPrecedence;
+    }
+
+    private static boolean isOpenParen(String op) {
+        return op.equals("(") || op.equals(CALL_MARKER);
+    }
+
+    private static int precedence(String op) {
+        switch (op) {
+            case "+":
+            case "-":
+                return 1;
+            case "*":
+            case "/":
+            case "%":
+                return 2;
+            case NEGATE:
+                return 3;
+            case "^":
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isBinary(String token) {
+        return token.length() == 1 && "+-*/%^".indexOf(token.charAt(0)) >= 0;
+    }
+
+    private static boolean isFunction(String token) {
+        switch (token) {
+            case "abs":
+            case "sqrt":
+            case "exp":
+            case "log":
+            case "min":
+            case "max":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void checkFunction(String name) {
+        if (!isFunction(name)) {
+            throw error("Unknown function", name);
+        }
+    }
+
+    private static boolean isIdentifierStart(char ch) {
+        return Character.isLetter(ch) || ch == '_';
+    }
+
+    /**
+     * Next number, identifier or single-character symbol, or null at the end
+     */
+    private String nextToken() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos == source.length()) {
+            return null;
+        }
+        int start = pos;
+        char ch = source.charAt(pos);
+        if (Character.isDigit(ch) || ch == '.') {
+            while (pos < source.length()) {
+                char c = source.charAt(pos);
+                boolean exponentSign = (c == '+' || c == '-') && (source.charAt(pos - 1) == 'e' || source.charAt(pos - 1) == 'E');
+                if (!Character.isDigit(c) && c != '.' && c != 'e' && c != 'E' && !exponentSign) {
+                    break;
+                }
+                pos++;
+            }
+        } else if (isIdentifierStart(ch)) {
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+        } else {
+            pos++;
+        }
+        return source.substring(start, pos);
+    }
+
+    private char peekChar() {
+        int i = pos;
+        while (i < source.length() && Character.isWhitespace(source.charAt(i))) {
+            i++;
+        }
+        return i < source.length() ? source.charAt(i) : 0;
+    }
+
+    private IllegalArgumentException error(String message, String token) {
+        return new IllegalArgumentException(message + (token.isEmpty() ? "" : " '" + token + "'")
+                + " at " + pos + " in: " + source);
+    }
+}
@@ -0,0 +1,232 @@
+package datastructures.stack;
+
+/**
+ * Growth and shrink rules for the array-backed stacks
+ *
+ * A stack asks {@link #grow} for a new capacity when an element does not fit and
+ * {@link #shrink} after elements are removed; it reallocates only when the answer
+ * differs from the current capacity. Keeping a gap between the size that triggers
+ * growth and the size that triggers shrinking is what stops a stack whose size
+ * oscillates around a boundary from reallocating on every push and pop.
+ *
+ * Policies:
+ * - factor(f): multiply by f when full, divide by f once size &lt; capacity / f²
+ *   (factor(2) is the classic double / halve-at-a-quarter rule and the default)
+ * - additive(n): grow by n slots at a time, give back slots once more than 2n are free
+ * - capped(base, max): base policy, but never beyond max (pushing more throws)
+ * - neverShrink(base): base growth, capacity is never given back
+ * - hysteresis(f, lowWater, min): grow by f, shrink only below lowWater × capacity,
+ *   and then only to size × f and never under min
+ */
+public abstract class GrowthPolicy {
+
+    /** Largest array length the JVM reliably allocates. */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private static final GrowthPolicy DOUBLING = factor(2);
+
+    /**
+     * Capacity to grow to so that at least required elements fit
+     *
+     * @throws IllegalStateException if the policy cannot hold required elements
+     */
+    public abstract int grow(int capacity, int required);
+
+    /**
+     * Capacity to shrink to now that size elements remain, or capacity to keep it
+     */
+    public abstract int shrink(int capacity, int size);
+
+    /**
+     * Double when full, halve once less than a quarter is used
+     */
+    public static GrowthPolicy doubling() {
+        return DOUBLING;
+    }
+
+    public static GrowthPolicy factor(double factor) {
+        if (!(factor > 1)) {
+            throw new IllegalArgumentException("Factor must be greater than 1");
+        }
+        return new Factor(factor);
+    }
+
+    public static GrowthPolicy additive(int increment) {
+        if (increment <= 0) {
+            throw new IllegalArgumentException("Increment must be positive");
+        }
+        return new Additive(increment);
+    }
+
+    public static GrowthPolicy capped(GrowthPolicy base, int maxCapacity) {
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("Max capacity must be positive");
+        }
+        return new Capped(base, maxCapacity);
+    }
+
+    public static GrowthPolicy neverShrink(GrowthPolicy base) {
+        return new NeverShrink(base);
+    }
+
+    public static GrowthPolicy hysteresis(double factor, double lowWater, int minCapacity) {
+        if (!(factor > 1) || !(lowWater > 0) || lowWater >= 1 / factor || minCapacity <= 0) {
+            throw new IllegalArgumentException("Need factor > 1, 0 < lowWater < 1/factor, minCapacity > 0");
+        }
+        return new Hysteresis(factor, lowWater, minCapacity);
+    }
+
+    static int checkedRequired(int required) {
+        if (required < 0 || required > MAX_CAPACITY) {
+            throw new IllegalStateException("Stack cannot hold more than " + MAX_CAPACITY + " elements");
+        }
+        return required;
+    }
+
+    private static final class Factor extends GrowthPolicy {
+        private final double factor;
+
+        Factor(double factor) {
+            this.factor = factor;
+        }
+
+        @Override
+        public int grow(int capacity, int required) {
+            checkedRequired(required);
+            long grown = capacity;
+            while (grown < required) {
+                grown = Math.max(grown + 1, (long) (grown * factor));
+            }
+            return (int) Math.min(grown, MAX_CAPACITY);
+        }
+
+        @Override
+        public int shrink(int capacity, int size) {
+            if (size <= 1) {
+                return capacity;
+            }
+            long shrunk = capacity;
+            while (size < shrunk / (factor * factor)) {
+                shrunk = (long) (shrunk / factor);
+            }
+            return (int) shrunk;
+        }
+
+        @Override
+        public String toString() {
+            return "factor(" + factor + ")";
+        }
+    }
+
+    private static final class Additive extends GrowthPolicy {
+        private final int increment;
+
+        Additive(int increment) {
+            this.increment = increment;
+        }
+
+        @Override
+        public int grow(int capacity, int required) {
+            checkedRequired(required);
+            if (required <= capacity) {
+                return capacity;
+            }
+            long steps = ((long) required - capacity + increment - 1) / increment;
+            return (int) Math.min((long) capacity + steps * increment, MAX_CAPACITY);
+        }
+
+        @Override
+        public int shrink(int capacity, int size) {
+            return capacity - size > 2L * increment ? Math.max(1, size + increment) : capacity;
+        }
+
+        @Override
+        public String toString() {
+            return "additive(" + increment + ")";
+        }
+    }
+
+    private static final class Capped extends GrowthPolicy {
+        private final GrowthPolicy base;
+        private final int maxCapacity;
+
+        Capped(GrowthPolicy base, int maxCapacity) {
+            this.base = base;
+            this.maxCapacity = maxCapacity;
+        }
+
+        @Override
+        public int grow(int capacity, int required) {
+            if (required > maxCapacity) {
+                throw new IllegalStateException("Stack is capped at " + maxCapacity + " elements");
+            }
+            return Math.min(base.grow(capacity, required), maxCapacity);
+        }
+
+        @Override
+        public int shrink(int capacity, int size) {
+            return base.shrink(capacity, size);
+        }
+
+        @Override
+        public String toString() {
+            return "capped(" + base + ", " + maxCapacity + ")";
+        }
+    }
+
+    private static final class NeverShrink extends GrowthPolicy {
+        private final GrowthPolicy base;
+
+        NeverShrink(GrowthPolicy base) {
+            this.base = base;
+        }
+
+        @Override
+        public int grow(int capacity, int required) {
+            return base.grow(capacity, required);
+        }
+
+        @Override
+        public int shrink(int capacity, int size) {
+            return capacity;
+        }
+
+        @Override
+        public String toString() {
+            return "neverShrink(" + base + ")";
+        }
+    }
+
+    private static final class Hysteresis extends GrowthPolicy {
+        private final Factor growth;
+        private final double factor;
+        private final double lowWater;
+        private final int minCapacity;
+
+        Hysteresis(double factor, double lowWater, int minCapacity) {
+            this.growth = new Factor(factor);
+            this.factor = factor;
+            this.lowWater = lowWater;
+            this.minCapacity = minCapacity;
+        }
+
+        @Override
+        public int grow(int capacity, int required) {
+            return growth.grow(Math.max(capacity, Math.min(minCapacity, required)), required);
+        }
+
+        @Override
+        public int shrink(int capacity, int size) {
+            if (capacity <= minCapacity || size >= capacity * lowWater) {
+                return capacity;
+            }
+            long target = Math.max(minCapacity, (long) Math.ceil(size * factor));
+            return (int) Math.min(target, capacity);
+        }
+
+        @Override
+        public String toString() {
+            return "hysteresis(" + factor + ", " + lowWater + ", " + minCapacity + ")";
+        }
+    }
+}
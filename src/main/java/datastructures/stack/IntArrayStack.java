@@ -0,0 +1,301 @@
+package datastructures.stack;
+
+import java.util.EmptyStackException;
+
+/**
+ * Array-Based Stack of primitive ints
+ *
+ * Same API and growth policies as {@link ArrayStack}, but values live in an int[]
+ * instead of Object[], so push and pop never box and allocate nothing except
+ * when the array is resized.
+ *
+ * Time Complexity:
+ * - Push: O(1) amortized (O(n) when resizing)
+ * - Pop: O(1)
+ * - Peek: O(1)
+ * - pushAll / popN: O(k) for k elements, one arraycopy
+ * - isEmpty: O(1)
+ * - Size: O(1)
+ *
+ * Space Complexity: O(capacity), 4 bytes per slot
+ */
+public class IntArrayStack {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private int[] array;
+    private int top;        // Index of top element
+    private int capacity;
+    private final GrowthPolicy policy;
+
+    /**
+     * Constructor with default capacity
+     */
+    public IntArrayStack() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor with custom capacity
+     */
+    public IntArrayStack(int capacity) {
+        this(capacity, GrowthPolicy.doubling());
+    }
+
+    /**
+     * Constructor with custom capacity and growth policy
+     */
+    public IntArrayStack(int capacity, GrowthPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.array = new int[capacity];
+        this.top = -1;  // Empty stack
+        this.policy = policy;
+    }
+
+    /**
+     * Push an element onto the stack
+     * Time Complexity: O(1) amortized
+     */
+    public void push(int value) {
+        // Resize if full
+        if (top == capacity - 1) {
+            resize(policy.grow(capacity, capacity + 1));
+        }
+
+        array[++top] = value;
+    }
+
+    /**
+     * Push all values; values[values.length - 1] ends up on top
+     * Time Complexity: O(k)
+     */
+    public void pushAll(int[] values) {
+        pushAll(values, 0, values.length);
+    }
+
+    /**
+     * Push values[offset .. offset + length - 1]; the last one ends up on top
+     * Time Complexity: O(k), at most one resize
+     */
+    public void pushAll(int[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > values.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " length=" + length + " size=" + values.length);
+        }
+        ensureCapacity(top + 1 + length);
+        System.arraycopy(values, offset, array, top + 1, length);
+        top += length;
+    }
+
+    /**
+     * Pop and return the top element
+     * Time Complexity: O(1)
+     *
+     * @throws EmptyStackException if stack is empty
+     */
+    public int pop() {
+        if (isEmpty()) {
+            throw new EmptyStackException();
+        }
+
+        int value = array[top--];
+
+        // Shrink if the policy says so
+        shrinkIfNeeded();
+
+        return value;
+    }
+
+    /**
+     * Pop the top n elements into dest[offset .. offset + n - 1], in the order they
+     * were pushed (the former top lands at offset + n - 1), so pushAll(dest, offset, n)
+     * restores the stack.
+     * Time Complexity: O(k), at most one shrink
+     *
+     * @throws EmptyStackException if the stack holds fewer than n elements
+     */
+    public void popN(int[] dest, int offset, int n) {
+        if (n < 0 || offset < 0 || offset + n > dest.length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " n=" + n + " size=" + dest.length);
+        }
+        if (n > size()) {
+            throw new EmptyStackException();
+        }
+        top -= n;
+        System.arraycopy(array, top + 1, dest, offset, n);
+
+        shrinkIfNeeded();
+    }
+
+    /**
+     * Return the top element without removing it
+     * Time Complexity: O(1)
+     *
+     * @throws EmptyStackException if stack is empty
+     */
+    public int peek() {
+        if (isEmpty()) {
+            throw new EmptyStackException();
+        }
+        return array[top];
+    }
+
+    /**
+     * Check if stack is empty
+     * Time Complexity: O(1)
+     */
+    public boolean isEmpty() {
+        return top == -1;
+    }
+
+    /**
+     * Get number of elements in stack
+     * Time Complexity: O(1)
+     */
+    public int size() {
+        return top + 1;
+    }
+
+    /**
+     * Get current capacity
+     * Time Complexity: O(1)
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the growth policy
+     */
+    public GrowthPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Grow (as the policy allows) so that at least minCapacity elements fit
+     * Time Complexity: O(n) if it resizes, O(1) otherwise
+     *
+     * @throws IllegalStateException if the policy caps capacity below minCapacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > capacity) {
+            resize(policy.grow(capacity, minCapacity));
+        }
+    }
+
+    /**
+     * Shrink capacity to the current size (at least 1)
+     * Time Complexity: O(n)
+     */
+    public void trimToSize() {
+        int target = Math.max(1, size());
+        if (target != capacity) {
+            resize(target);
+        }
+    }
+
+    /**
+     * Clear all elements from stack (nothing to release for primitives)
+     * Time Complexity: O(1)
+     */
+    public void clear() {
+        top = -1;
+    }
+
+    /**
+     * Search for an element (returns position from top, 1-indexed)
+     * Time Complexity: O(n)
+     *
+     * @return position from top (1-indexed), or -1 if not found
+     */
+    public int search(int value) {
+        for (int i = top; i >= 0; i--) {
+            if (array[i] == value) {
+                return top - i + 1;  // Position from top (1-indexed)
+            }
+        }
+        return -1;  // Not found
+    }
+
+    /**
+     * Check if stack contains an element
+     * Time Complexity: O(n)
+     */
+    public boolean contains(int value) {
+        return search(value) != -1;
+    }
+
+    /**
+     * Ask the policy whether to give memory back after removals
+     * Time Complexity: O(1), O(n) when it shrinks
+     */
+    private void shrinkIfNeeded() {
+        int target = policy.shrink(capacity, top + 1);
+        if (target < capacity) {
+            resize(target);
+        }
+    }
+
+    /**
+     * Move the elements into an array of the given capacity
+     * Time Complexity: O(n)
+     */
+    private void resize(int newCapacity) {
+        int[] newArray = new int[newCapacity];
+
+        // Copy elements
+        System.arraycopy(array, 0, newArray, 0, top + 1);
+
+        array = newArray;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Display stack contents (for debugging)
+     */
+    public void display() {
+        if (isEmpty()) {
+            System.out.println("Stack is empty");
+            return;
+        }
+
+        System.out.print("Stack (top to bottom): ");
+        for (int i = top; i >= 0; i--) {
+            System.out.print(array[i]);
+            if (i > 0) {
+                System.out.print(" → ");
+            }
+        }
+        System.out.println();
+    }
+
+    /**
+     * String representation of stack
+     */
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "[]";
+        }
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = top; i >= 0; i--) {
+            sb.append(array[i]);
+            if (i > 0) {
+                sb.append(", ");
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Check if stack is full (useful for fixed-size stacks)
+     * Time Complexity: O(1)
+     */
+    public boolean isFull() {
+        return top == capacity - 1;
+    }
+}
@@ -14,6 +14,12 @@ import java.util.EmptyStackException;
  * - Peek: O(1)
  * - isEmpty: O(1)
  * - Size: O(1)
+ * - Sort: O(n log n), iterative merge sort on the nodes
+ * - Reverse: O(n), pointer reversal
+ * - getMin / getMax: O(1) with min/max tracking, O(n) without
+ *
+ * Nothing recurses, so million-element stacks sort and reverse without
+ * a StackOverflowError.
  *
  * Space Complexity: O(n) where n is number of elements
  *
@@ -44,12 +50,26 @@ public class LinkedListStack<T> {
     private Node top;   // Top of the stack
     private int size;   // Number of elements
 
+    // Min/max tracking: monotonic stacks whose tops are the current min and max
+    private final boolean trackMinMax;
+    private Node minTop;
+    private Node maxTop;
+
     /**
      * Constructor - Initialize empty stack
      */
     public LinkedListStack() {
+        this(false);
+    }
+
+    /**
+     * Constructor - with trackMinMax, getMin and getMax run in O(1) at the cost
+     * of up to two extra nodes per push
+     */
+    public LinkedListStack(boolean trackMinMax) {
         this.top = null;
         this.size = 0;
+        this.trackMinMax = trackMinMax;
     }
 
     /**
@@ -61,6 +81,10 @@ public class LinkedListStack<T> {
         newNode.next = top;
         top = newNode;
         size++;
+
+        if (trackMinMax) {
+            trackPush(value);
+        }
     }
 
     /**
@@ -77,6 +101,10 @@ public class LinkedListStack<T> {
         T value = top.data;
         top = top.next;
         size--;
+
+        if (trackMinMax) {
+            trackPop(value);
+        }
         return value;
     }
 
@@ -116,6 +144,8 @@ public class LinkedListStack<T> {
     public void clear() {
         top = null;
         size = 0;
+        minTop = null;
+        maxTop = null;
     }
 
     /**
@@ -193,76 +223,80 @@ public class LinkedListStack<T> {
     }
 
     /**
-     * Reverse the stack
+     * Reverse the stack in place by turning every next pointer around
      * Time Complexity: O(n)
-     * Space Complexity: O(n) for recursion stack
+     * Space Complexity: O(1)
      */
     public void reverse() {
-        if (isEmpty() || size == 1) {
-            return;
-        }
-        reverseRecursive();
-    }
-
-    private void reverseRecursive() {
-        if (isEmpty()) {
-            return;
-        }
+        top = reverseChain(top);
 
-        T temp = pop();
-        reverseRecursive();
-        insertAtBottom(temp);
+        rebuildMinMax();
     }
 
     /**
-     * Insert element at the bottom of stack
-     * Time Complexity: O(n)
-     * Space Complexity: O(n) for recursion stack
+     * Sort the stack (ascending from the bottom, largest on top) with a bottom-up
+     * merge sort that relinks the nodes: runs of width 1, 2, 4, ... are merged
+     * pairwise until one run is left. Stable, no recursion, no extra nodes.
+     * Time Complexity: O(n log n)
+     * Space Complexity: O(1)
      */
-    private void insertAtBottom(T value) {
-        if (isEmpty()) {
-            push(value);
+    public void sort() {
+        if (size < 2) {
             return;
         }
+        Node dummy = new Node(null);
+        dummy.next = top;
+
+        for (int width = 1; width < size; width *= 2) {
+            Node tail = dummy;          // Last node of the merged part
+            Node remaining = dummy.next;
+            while (remaining != null) {
+                Node left = remaining;
+                Node right = split(left, width);
+                remaining = split(right, width);
+                tail = merge(left, right, tail);
+            }
+        }
+        top = dummy.next;
 
-        T temp = pop();
-        insertAtBottom(value);
-        push(temp);
+        rebuildMinMax();
     }
 
     /**
-     * Sort the stack (ascending order, smallest on top)
-     * Time Complexity: O(n²)
-     * Space Complexity: O(n) for recursion stack
+     * Cut the chain after count nodes and return the rest (null if it is shorter)
      */
-    public void sort() {
-        if (!isEmpty()) {
-            sortRecursive();
+    private Node split(Node head, int count) {
+        for (int i = 1; head != null && i < count; i++) {
+            head = head.next;
         }
-    }
-
-    private void sortRecursive() {
-        if (isEmpty()) {
-            return;
+        if (head == null) {
+            return null;
         }
-
-        T temp = pop();
-        sortRecursive();
-        sortedInsert(temp);
+        Node rest = head.next;
+        head.next = null;
+        return rest;
     }
 
     /**
-     * Insert element in sorted order
+     * Merge two runs, larger first (ties keep their order), after tail;
+     * return the last node of the merged run
      */
-    private void sortedInsert(T value) {
-        if (isEmpty() || compare(value, peek()) > 0) {
-            push(value);
-            return;
+    private Node merge(Node left, Node right, Node tail) {
+        while (left != null && right != null) {
+            if (compare(left.data, right.data) >= 0) {
+                tail.next = left;
+                left = left.next;
+            } else {
+                tail.next = right;
+                right = right.next;
+            }
+            tail = tail.next;
         }
-
-        T temp = pop();
-        sortedInsert(value);
-        push(temp);
+        tail.next = left != null ? left : right;
+        while (tail.next != null) {
+            tail = tail.next;
+        }
+        return tail;
     }
 
     /**
@@ -276,14 +310,24 @@ public class LinkedListStack<T> {
         return 0;
     }
 
+    /**
+     * Whether getMin and getMax are answered from the tracking stacks
+     */
+    public boolean isTrackingMinMax() {
+        return trackMinMax;
+    }
+
     /**
      * Get the minimum element in stack
-     * Time Complexity: O(n)
+     * Time Complexity: O(1) when tracking min/max, O(n) otherwise
      */
     public T getMin() {
         if (isEmpty()) {
             throw new EmptyStackException();
         }
+        if (trackMinMax) {
+            return minTop.data;
+        }
 
         T min = top.data;
         Node current = top.next;
@@ -300,12 +344,15 @@ public class LinkedListStack<T> {
 
     /**
      * Get the maximum element in stack
-     * Time Complexity: O(n)
+     * Time Complexity: O(1) when tracking min/max, O(n) otherwise
      */
     public T getMax() {
         if (isEmpty()) {
             throw new EmptyStackException();
         }
+        if (trackMinMax) {
+            return maxTop.data;
+        }
 
         T max = top.data;
         Node current = top.next;
@@ -319,4 +366,67 @@ public class LinkedListStack<T> {
 
         return max;
     }
+
+    /**
+     * Record value on the min/max stacks: it goes on the min stack if it is not
+     * larger than the current minimum, on the max stack if it is not smaller than
+     * the current maximum (duplicates included, so each pop can undo exactly one)
+     * Time Complexity: O(1)
+     */
+    private void trackPush(T value) {
+        if (minTop == null || compare(value, minTop.data) <= 0) {
+            Node node = new Node(value);
+            node.next = minTop;
+            minTop = node;
+        }
+        if (maxTop == null || compare(value, maxTop.data) >= 0) {
+            Node node = new Node(value);
+            node.next = maxTop;
+            maxTop = node;
+        }
+    }
+
+    /**
+     * Undo trackPush for a value just popped
+     * Time Complexity: O(1)
+     */
+    private void trackPop(T value) {
+        if (compare(value, minTop.data) == 0) {
+            minTop = minTop.next;
+        }
+        if (compare(value, maxTop.data) == 0) {
+            maxTop = maxTop.next;
+        }
+    }
+
+    /**
+     * Replay the stack from the bottom into fresh min/max stacks after the order
+     * changed. The chain is reversed to walk it bottom-up and reversed back.
+     * Time Complexity: O(n)
+     * Space Complexity: O(1) beyond the tracking stacks
+     */
+    private void rebuildMinMax() {
+        if (!trackMinMax) {
+            return;
+        }
+        minTop = null;
+        maxTop = null;
+
+        Node bottomFirst = reverseChain(top);
+        for (Node current = bottomFirst; current != null; current = current.next) {
+            trackPush(current.data);
+        }
+        top = reverseChain(bottomFirst);
+    }
+
+    private Node reverseChain(Node head) {
+        Node previous = null;
+        while (head != null) {
+            Node next = head.next;
+            head.next = previous;
+            previous = head;
+            head = next;
+        }
+        return previous;
+    }
 }
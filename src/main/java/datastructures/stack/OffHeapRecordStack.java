@@ -0,0 +1,415 @@
+package datastructures.stack;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EmptyStackException;
+import java.util.List;
+
+/**
+ * Off-Heap Stack of Fixed-Width Records with Spill-to-Disk
+ *
+ * A stack of records that are all recordSize bytes wide, for stacks far deeper
+ * than the heap could hold as objects (DFS and backtracking frames). Records
+ * live in direct ByteBuffer chunks outside the Java heap, so a frame costs
+ * recordSize bytes instead of an object plus a reference, and the GC never
+ * scans them.
+ *
+ * Only the top of the stack is ever touched, so when the resident chunks
+ * exceed the memory budget the coldest one (the lowest) is written to its own
+ * region of a spill file and its memory is reused. Popping back down into a
+ * spilled chunk reads it back in and truncates the file to the chunks still
+ * spilled. Every chunk below the top is full, so a chunk moves at most once per
+ * chunkRecords pushes or pops. The file is accessed with positional reads and
+ * writes rather than mapped, since a mapping per chunk would run into the
+ * per-process mapping limit (vm.max_map_count) long before the disk fills; the
+ * depth is limited by disk space rather than -Xmx.
+ *
+ * Records are written and read either whole (byte[]) or field by field on the
+ * top record, in native byte order:
+ *
+ *   stack.push();                 // reserve a new top record
+ *   stack.putInt(0, node);
+ *   stack.putLong(4, cost);
+ *   ...
+ *   int node = stack.getInt(0);   // read the top record
+ *   stack.drop();                 // pop it
+ *
+ * Not thread-safe. Close the stack to delete the spill file.
+ *
+ * Time Complexity:
+ * - Push / Pop / Peek / field access: O(1) amortized (O(chunk) when a chunk spills or loads)
+ * - isEmpty / Size: O(1)
+ *
+ * Space Complexity: at most the memory budget (plus one spare chunk) off-heap,
+ * the rest of the records on disk
+ */
+public class OffHeapRecordStack implements AutoCloseable {
+
+    private static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+    private static final long DEFAULT_BUDGET_BYTES = 64L << 20;
+
+    /**
+     * A chunk of chunkRecords records; memory is null while it is spilled
+     */
+    private static final class Chunk {
+        ByteBuffer memory;
+
+        Chunk(ByteBuffer memory) {
+            this.memory = memory;
+        }
+    }
+
+    private final int recordSize;
+    private final int chunkRecords;
+    private final int chunkBytes;
+    private final int maxResidentChunks;
+    private final Path spillDirectory;
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private ByteBuffer top;         // Memory of the top chunk
+    private int topCount;           // Records in the top chunk
+    private long size;              // Number of records
+    private int firstResident;      // Chunks [firstResident, chunks.size()) are in memory
+    private ByteBuffer spare;       // Memory of the last chunk given back, for reuse
+
+    private Path spillFile;
+    private FileChannel channel;
+    private long spills;
+    private long loads;
+    private boolean closed;
+
+    /**
+     * Constructor with 1 MiB chunks, a 64 MiB budget and the temp directory for spilling
+     */
+    public OffHeapRecordStack(int recordSize) {
+        this(recordSize, Math.max(1, DEFAULT_CHUNK_BYTES / recordSize), DEFAULT_BUDGET_BYTES,
+                Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Constructor with custom chunking, memory budget and spill directory
+     *
+     * @param recordSize     bytes per record
+     * @param chunkRecords   records per chunk, the unit of allocation and spilling
+     * @param budgetBytes    off-heap bytes to keep in memory (at least two chunks are kept)
+     * @param spillDirectory where the spill file is created once the budget is exceeded
+     */
+    public OffHeapRecordStack(int recordSize, int chunkRecords, long budgetBytes, Path spillDirectory) {
+        if (recordSize <= 0 || chunkRecords <= 0) {
+            throw new IllegalArgumentException("Record size and chunk records must be positive");
+        }
+        if ((long) recordSize * chunkRecords > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A chunk must fit in 2 GiB");
+        }
+        this.recordSize = recordSize;
+        this.chunkRecords = chunkRecords;
+        this.chunkBytes = recordSize * chunkRecords;
+        this.maxResidentChunks = (int) Math.max(2, Math.min(Integer.MAX_VALUE, budgetBytes / chunkBytes));
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Push a new record and make it the top; its bytes are unspecified until written
+     * Time Complexity: O(1) amortized
+     */
+    public void push() {
+        ensureOpen();
+        if (top == null || topCount == chunkRecords) {
+            addChunk();
+        }
+        topCount++;
+        size++;
+    }
+
+    /**
+     * Push a copy of record[offset .. offset + recordSize - 1]
+     * Time Complexity: O(recordSize) amortized
+     */
+    public void push(byte[] record, int offset) {
+        checkRange(record, offset);
+        push();
+        top.put(topPosition(), record, offset, recordSize);
+    }
+
+    /**
+     * Copy the top record into dest[offset ..] without removing it
+     * Time Complexity: O(recordSize)
+     *
+     * @throws EmptyStackException if stack is empty
+     */
+    public void peek(byte[] dest, int offset) {
+        checkRange(dest, offset);
+        checkNotEmpty();
+        top.get(topPosition(), dest, offset, recordSize);
+    }
+
+    /**
+     * Copy the top record into dest[offset ..] and remove it
+     * Time Complexity: O(recordSize) amortized
+     *
+     * @throws EmptyStackException if stack is empty
+     */
+    public void pop(byte[] dest, int offset) {
+        peek(dest, offset);
+        drop();
+    }
+
+    /**
+     * Remove the top record
+     * Time Complexity: O(1) amortized
+     *
+     * @throws EmptyStackException if stack is empty
+     */
+    public void drop() {
+        checkNotEmpty();
+        topCount--;
+        size--;
+        if (topCount == 0 && chunks.size() > 1) {
+            removeTopChunk();
+        }
+    }
+
+    public int getInt(int fieldOffset) {
+        return top.getInt(fieldPosition(fieldOffset, Integer.BYTES));
+    }
+
+    public void putInt(int fieldOffset, int value) {
+        top.putInt(fieldPosition(fieldOffset, Integer.BYTES), value);
+    }
+
+    public long getLong(int fieldOffset) {
+        return top.getLong(fieldPosition(fieldOffset, Long.BYTES));
+    }
+
+    public void putLong(int fieldOffset, long value) {
+        top.putLong(fieldPosition(fieldOffset, Long.BYTES), value);
+    }
+
+    public double getDouble(int fieldOffset) {
+        return top.getDouble(fieldPosition(fieldOffset, Double.BYTES));
+    }
+
+    public void putDouble(int fieldOffset, double value) {
+        top.putDouble(fieldPosition(fieldOffset, Double.BYTES), value);
+    }
+
+    /**
+     * Check if stack is empty
+     * Time Complexity: O(1)
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get number of records in stack
+     * Time Complexity: O(1)
+     */
+    public long size() {
+        return size;
+    }
+
+    public int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Off-heap bytes currently held in memory, including the spare chunk
+     */
+    public long residentBytes() {
+        return (long) (chunks.size() - firstResident + (spare == null ? 0 : 1)) * chunkBytes;
+    }
+
+    /**
+     * Number of chunks currently paged out to the spill file
+     */
+    public int spilledChunks() {
+        return firstResident;
+    }
+
+    /**
+     * Times a chunk was copied out to the spill file / back into memory
+     */
+    public long spillCount() {
+        return spills;
+    }
+
+    public long loadCount() {
+        return loads;
+    }
+
+    /**
+     * Remove all records and give back memory and disk space
+     * Time Complexity: O(1)
+     */
+    public void clear() {
+        ensureOpen();
+        chunks.clear();
+        top = null;
+        topCount = 0;
+        size = 0;
+        firstResident = 0;
+        spare = null;
+        if (channel != null) {
+            try {
+                channel.truncate(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Release the memory and delete the spill file
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        top = null;
+        spare = null;
+        size = 0;
+        if (channel != null) {
+            try {
+                channel.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapRecordStack[size=" + size + ", recordSize=" + recordSize
+                + ", resident=" + (chunks.size() - firstResident) + ", spilled=" + firstResident + "]";
+    }
+
+    /**
+     * Start a new top chunk, then spill from the bottom until back within budget
+     */
+    private void addChunk() {
+        ByteBuffer memory = spare != null ? spare : allocate();
+        spare = null;
+        chunks.add(new Chunk(memory));
+        top = memory;
+        topCount = 0;
+
+        while (chunks.size() - firstResident > maxResidentChunks) {
+            spillColdest();
+        }
+    }
+
+    /**
+     * Drop the empty top chunk (keeping its memory as the spare) and make the one
+     * below it the top, loading it back if it was spilled
+     */
+    private void removeTopChunk() {
+        Chunk removed = chunks.remove(chunks.size() - 1);
+        spare = removed.memory;
+
+        Chunk below = chunks.get(chunks.size() - 1);
+        if (below.memory == null) {
+            load(below, chunks.size() - 1);
+        }
+        top = below.memory;
+        topCount = chunkRecords;    // Every chunk below the top is full
+    }
+
+    private void spillColdest() {
+        Chunk chunk = chunks.get(firstResident);
+        ByteBuffer memory = chunk.memory.clear();   // Records are accessed by index, so position is free
+        long position = (long) firstResident * chunkBytes;
+        try {
+            FileChannel file = spillChannel();
+            while (memory.hasRemaining()) {
+                file.write(memory, position + memory.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill record stack to " + spillDirectory, e);
+        }
+        if (spare == null) {
+            spare = chunk.memory;
+        }
+        chunk.memory = null;
+        firstResident++;
+        spills++;
+    }
+
+    private void load(Chunk chunk, int index) {
+        ByteBuffer memory = spare != null ? spare : allocate();
+        spare = null;
+        memory.clear();
+        long position = (long) index * chunkBytes;
+        try {
+            while (memory.hasRemaining()) {
+                if (channel.read(memory, position + memory.position()) < 0) {
+                    throw new EOFException("Spill file ends inside chunk " + index);
+                }
+            }
+            channel.truncate(position);     // Only chunks below index are still spilled
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load record stack chunk from " + spillFile, e);
+        }
+        chunk.memory = memory;
+        firstResident = index;
+        loads++;
+    }
+
+    /**
+     * The spill file, created on first use; chunk i occupies [i * chunkBytes, (i + 1) * chunkBytes)
+     */
+    private FileChannel spillChannel() throws IOException {
+        if (channel == null) {
+            spillFile = Files.createTempFile(spillDirectory, "record-stack-", ".spill");
+            channel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    private ByteBuffer allocate() {
+        return ByteBuffer.allocateDirect(chunkBytes).order(ByteOrder.nativeOrder());
+    }
+
+    private int topPosition() {
+        return (topCount - 1) * recordSize;
+    }
+
+    private int fieldPosition(int fieldOffset, int width) {
+        checkNotEmpty();
+        if (fieldOffset < 0 || fieldOffset > recordSize - width) {
+            throw new IndexOutOfBoundsException("field " + fieldOffset + "+" + width + " outside record of " + recordSize);
+        }
+        return topPosition() + fieldOffset;
+    }
+
+    private void checkRange(byte[] bytes, int offset) {
+        if (offset < 0 || offset > bytes.length - recordSize) {
+            throw new IndexOutOfBoundsException("offset=" + offset + " recordSize=" + recordSize + " length=" + bytes.length);
+        }
+    }
+
+    private void checkNotEmpty() {
+        ensureOpen();
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Stack is closed");
+        }
+    }
+}
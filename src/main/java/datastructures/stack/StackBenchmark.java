@@ -0,0 +1,200 @@
+package datastructures.stack;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Benchmark: IntArrayStack vs ArrayStack&lt;Integer&gt; vs java.util.ArrayDeque&lt;Integer&gt;
+ *
+ * Workloads, each reported as time per operation and bytes allocated per operation:
+ * - push/pop: push n values, then pop them all, repeated
+ * - next greater element: the monotonic-stack loop from StackDemo over a random array
+ * - resize churn: a size that keeps crossing the shrink threshold, per GrowthPolicy
+ * - full fill / drain through ArrayStack.pushAll / popN
+ *
+ * Values start above the Integer cache (-128..127), so every boxed push allocates.
+ *
+ * Usage: StackBenchmark [n] [rounds]
+ */
+public class StackBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        int[] values = new int[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            values[i] = 1_000 + random.nextInt(1_000_000);
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            System.out.println(pass == 0 ? "-- warm-up --" : "-- measured --");
+            long ops = 2L * n * rounds;
+
+            measure("push/pop IntArrayStack", ops, () -> {
+                IntArrayStack stack = new IntArrayStack(n);
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    for (int value : values) {
+                        stack.push(value);
+                    }
+                    while (!stack.isEmpty()) {
+                        sum += stack.pop();
+                    }
+                }
+                return sum;
+            });
+            measure("push/pop IntArrayStack bulk", ops, () -> {
+                IntArrayStack stack = new IntArrayStack(n);
+                int[] out = new int[n];
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    stack.pushAll(values);
+                    stack.popN(out, 0, n);
+                    for (int value : out) {
+                        sum += value;
+                    }
+                }
+                return sum;
+            });
+            measure("push/pop ArrayStack<Integer>", ops, () -> {
+                ArrayStack<Integer> stack = new ArrayStack<>(n);
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    for (int value : values) {
+                        stack.push(value);
+                    }
+                    while (!stack.isEmpty()) {
+                        sum += stack.pop();
+                    }
+                }
+                return sum;
+            });
+            measure("push/pop ArrayDeque<Integer>", ops, () -> {
+                ArrayDeque<Integer> stack = new ArrayDeque<>(n);
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    for (int value : values) {
+                        stack.push(value);
+                    }
+                    while (!stack.isEmpty()) {
+                        sum += stack.pop();
+                    }
+                }
+                return sum;
+            });
+
+            Integer[] boxed = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                boxed[i] = values[i];
+            }
+            long churnOps = 2L * (n - (n / 4 - 1)) * rounds;
+            churn("churn doubling", churnOps, n, rounds, boxed, GrowthPolicy.doubling());
+            churn("churn hysteresis(2, 1/8, 1024)", churnOps, n, rounds, boxed, GrowthPolicy.hysteresis(2, 0.125, 1024));
+            churn("churn neverShrink(doubling)", churnOps, n, rounds, boxed, GrowthPolicy.neverShrink(GrowthPolicy.doubling()));
+            measure("pushAll/popN ArrayStack<Integer>", ops, () -> {
+                ArrayStack<Integer> stack = new ArrayStack<>();
+                Integer[] out = new Integer[n];
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    stack.pushAll(boxed);
+                    stack.popN(out, 0, n);
+                    sum += out[n - 1];
+                }
+                return sum;
+            });
+
+            long elements = (long) n * rounds;
+            measure("next greater IntArrayStack", elements, () -> {
+                IntArrayStack stack = new IntArrayStack();
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    stack.clear();
+                    for (int i = n - 1; i >= 0; i--) {
+                        while (!stack.isEmpty() && stack.peek() <= values[i]) {
+                            stack.pop();
+                        }
+                        sum += stack.isEmpty() ? -1 : stack.peek();
+                        stack.push(values[i]);
+                    }
+                }
+                return sum;
+            });
+            measure("next greater ArrayStack<Integer>", elements, () -> {
+                ArrayStack<Integer> stack = new ArrayStack<>();
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    stack.clear();
+                    for (int i = n - 1; i >= 0; i--) {
+                        while (!stack.isEmpty() && stack.peek() <= values[i]) {
+                            stack.pop();
+                        }
+                        sum += stack.isEmpty() ? -1 : stack.peek();
+                        stack.push(values[i]);
+                    }
+                }
+                return sum;
+            });
+            measure("next greater ArrayDeque<Integer>", elements, () -> {
+                ArrayDeque<Integer> stack = new ArrayDeque<>();
+                long sum = 0;
+                for (int r = 0; r < rounds; r++) {
+                    stack.clear();
+                    for (int i = n - 1; i >= 0; i--) {
+                        while (!stack.isEmpty() && stack.peek() <= values[i]) {
+                            stack.pop();
+                        }
+                        sum += stack.isEmpty() ? -1 : stack.peek();
+                        stack.push(values[i]);
+                    }
+                }
+                return sum;
+            });
+        }
+    }
+
+    /**
+     * Fill to n, then swing the size between n and just under n / 4: with doubling and
+     * halving below a quarter, every swing down shrinks and every swing up grows again.
+     * Values are pre-boxed, so only resizing allocates.
+     */
+    private static void churn(String name, long ops, int n, int rounds, Integer[] boxed, GrowthPolicy policy) {
+        int low = n / 4 - 1;
+        measure(name, ops, () -> {
+            ArrayStack<Integer> stack = new ArrayStack<>(16, policy);
+            for (Integer value : boxed) {
+                stack.push(value);
+            }
+            long sum = 0;
+            for (int r = 0; r < rounds; r++) {
+                while (stack.size() > low) {
+                    sum += stack.pop();
+                }
+                for (int i = low; i < n; i++) {
+                    stack.push(boxed[i]);
+                }
+            }
+            return sum;
+        });
+    }
+
+    private static void measure(String name, long ops, Workload workload) {
+        long thread = Thread.currentThread().threadId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long checksum = workload.run();
+        long nanos = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        System.out.printf("%-34s %6.2f ns/op %8.2f bytes/op  (checksum %d)%n",
+                name, (double) nanos / ops, (double) allocated / ops, checksum);
+    }
+
+    private interface Workload {
+        long run();
+    }
+}
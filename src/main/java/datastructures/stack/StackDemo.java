@@ -136,6 +136,10 @@ public class StackDemo {
         String postfix = "5 3 + 2 *";  // (5 + 3) * 2 = 16
         System.out.println("Postfix: " + postfix);
         System.out.println("Result: " + evaluatePostfix(postfix));
+        String infix = "price * qty * (1 - discount)";
+        Expression expression = Expression.compile(infix);
+        System.out.println("Infix: " + infix + " with price=2.5, qty=4, discount=0.1");
+        System.out.println("Result: " + expression.evaluate(2.5, 4, 0.1));
 
         // Application 4: Next Greater Element
         System.out.println("\nApplication 4: Next Greater Element");
@@ -199,38 +203,13 @@ public class StackDemo {
 
     /**
      * Evaluate postfix expression
+     * Compiled once (and cached) by Expression, so repeated calls do not re-parse.
+     * Arithmetic is done in long and the result narrowed to int: results that fit in an int
+     * are unchanged, but an intermediate value that would overflow int no longer wraps, so a
+     * later / or % sees the exact value.
      */
     private static int evaluatePostfix(String expr) {
-        ArrayStack<Integer> stack = new ArrayStack<>();
-        String[] tokens = expr.split(" ");
-
-        for (String token : tokens) {
-            if (isOperator(token)) {
-                int b = stack.pop();
-                int a = stack.pop();
-                int result = applyOperator(token, a, b);
-                stack.push(result);
-            } else {
-                stack.push(Integer.parseInt(token));
-            }
-        }
-
-        return stack.pop();
-    }
-
-    private static boolean isOperator(String token) {
-        return token.equals("+") || token.equals("-") ||
-               token.equals("*") || token.equals("/");
-    }
-
-    private static int applyOperator(String op, int a, int b) {
-        switch (op) {
-            case "+": return a + b;
-            case "-": return a - b;
-            case "*": return a * b;
-            case "/": return a / b;
-            default: return 0;
-        }
+        return (int) Expression.compilePostfix(expr).evaluateLong();
     }
 
     /**
@@ -238,7 +217,7 @@ public class StackDemo {
      */
     private static int[] nextGreaterElement(int[] arr) {
         int[] result = new int[arr.length];
-        ArrayStack<Integer> stack = new ArrayStack<>();
+        IntArrayStack stack = new IntArrayStack();
 
         // Traverse from right to left
         for (int i = arr.length - 1; i >= 0; i--) {
@@ -259,61 +238,43 @@ public class StackDemo {
 
     /**
      * Text editor with undo/redo functionality
+     * The undo/redo stacks inside TextBuffer hold edits, not copies of the text
      */
     private static void textEditorDemo() {
-        ArrayStack<String> undoStack = new ArrayStack<>();
-        ArrayStack<String> redoStack = new ArrayStack<>();
+        TextBuffer text = new TextBuffer();
 
-        String text = "";
-
-        // Type some text
+        // Type some text, one keystroke per undo step
         System.out.println("Typing: H -> He -> Hel -> Hell -> Hello");
-        text = "H";
-        undoStack.push(text);
-        System.out.println("Text: " + text);
-
-        text = "He";
-        undoStack.push(text);
-        System.out.println("Text: " + text);
-
-        text = "Hel";
-        undoStack.push(text);
-        System.out.println("Text: " + text);
-
-        text = "Hell";
-        undoStack.push(text);
-        System.out.println("Text: " + text);
-
-        text = "Hello";
-        undoStack.push(text);
-        System.out.println("Text: " + text);
+        for (char ch : "Hello".toCharArray()) {
+            text.insert(text.length(), String.valueOf(ch));
+            System.out.println("Text: " + text);
+        }
 
         // Undo
         System.out.println("\nUndo (Ctrl+Z):");
-        if (!undoStack.isEmpty()) {
-            String current = undoStack.pop();
-            redoStack.push(current);
-            text = undoStack.isEmpty() ? "" : undoStack.peek();
-            System.out.println("Text: " + text);
-        }
+        text.undo();
+        System.out.println("Text: " + text);
 
         // Undo again
         System.out.println("Undo again:");
-        if (!undoStack.isEmpty()) {
-            String current = undoStack.pop();
-            redoStack.push(current);
-            text = undoStack.isEmpty() ? "" : undoStack.peek();
-            System.out.println("Text: " + text);
-        }
+        text.undo();
+        System.out.println("Text: " + text);
 
         // Redo
         System.out.println("\nRedo (Ctrl+Y):");
-        if (!redoStack.isEmpty()) {
-            String restore = redoStack.pop();
-            undoStack.push(restore);
-            text = restore;
-            System.out.println("Text: " + text);
-        }
+        text.redo();
+        System.out.println("Text: " + text);
+
+        // Several edits as one undo step
+        System.out.println("\nReplace 'H' with 'W' and append '!' as one group:");
+        text.beginGroup();
+        text.replace(0, 1, "W");
+        text.insert(text.length(), "!");
+        text.endGroup();
+        System.out.println("Text: " + text);
+        text.undo();
+        System.out.println("Undo group: " + text);
+        System.out.println("Undo steps left: " + text.undoDepth() + ", redo steps: " + text.redoDepth());
     }
 
     private static void printArray(int[] arr) {
@@ -0,0 +1,520 @@
+package datastructures.stack;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Piece-Table Text Buffer with Delta Undo/Redo
+ *
+ * The document is never copied. It is a sequence of pieces, each pointing into
+ * one of two buffers: the original text (read-only) or the add buffer (typed text,
+ * append-only). Inserting appends to the add buffer and splices in one piece;
+ * deleting splices pieces out. The pieces are kept in a treap ordered by
+ * position, so finding the piece that holds an offset and splitting there is
+ * O(log p) for p pieces.
+ *
+ * The undo and redo stacks hold edits, not documents. Each edit is a position,
+ * a length and, while it is not applied, the subtree of pieces it removed, so
+ * undoing or redoing an edit splices one subtree back in or out. Edits made
+ * between beginGroup and endGroup are undone and redone together. Once the
+ * history is estimated to hold more than historyLimitBytes, the oldest groups
+ * are forgotten.
+ *
+ * Memory is the original text plus everything ever typed (the add buffer is
+ * never compacted) plus a node per piece; editing a 100 MB document costs
+ * memory in proportion to the edits, not the document.
+ *
+ * Time Complexity (p = number of pieces, k = characters involved):
+ * - insert / delete: O(log p + k) expected
+ * - undo / redo: O(log p) expected per edit in the group
+ * - charAt: O(log p) expected
+ * - substring: O(log p + k)
+ * - length: O(1)
+ *
+ * Space Complexity: O(original + inserted text + p)
+ */
+public class TextBuffer {
+
+    private static final long DEFAULT_HISTORY_LIMIT = 16L << 20;
+
+    // Rough heap cost of history bookkeeping, used for the history limit
+    private static final int EDIT_BYTES = 48;
+    private static final int PIECE_BYTES = 48;
+
+    /**
+     * A piece of one of the two buffers; also a treap node whose subtree spans
+     * total characters in count pieces
+     */
+    private static final class Piece {
+        final boolean added;
+        final int start;
+        final int length;
+        final int priority;
+        Piece left;
+        Piece right;
+        long total;
+        int count;
+
+        Piece(boolean added, int start, int length) {
+            this.added = added;
+            this.start = start;
+            this.length = length;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.total = length;
+            this.count = 1;
+        }
+    }
+
+    /**
+     * One insert or delete. removed holds the pieces of [position, position + length)
+     * while they are not in the document: after an insert is undone or a delete done.
+     */
+    private static final class Edit {
+        final boolean insert;
+        final int position;
+        final int length;
+        final long bytes;
+        Piece removed;
+
+        Edit(boolean insert, int position, int length, long bytes, Piece removed) {
+            this.insert = insert;
+            this.position = position;
+            this.length = length;
+            this.bytes = bytes;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * Edits undone and redone as one step
+     */
+    private static final class Group {
+        final List<Edit> edits = new ArrayList<>();
+        long bytes;
+    }
+
+    private final String original;
+    private final StringBuilder added = new StringBuilder();
+    private Piece root;
+
+    private final Deque<Group> undoStack = new ArrayDeque<>();
+    private final Deque<Group> redoStack = new ArrayDeque<>();
+    private final long historyLimitBytes;
+    private long historyBytes;
+    private Group openGroup;
+    private int groupDepth;
+
+    // Results of split()
+    private Piece splitLeft;
+    private Piece splitRight;
+
+    /**
+     * Constructor - empty document
+     */
+    public TextBuffer() {
+        this("");
+    }
+
+    /**
+     * Constructor - document starting as original, with a 16 MiB history limit
+     */
+    public TextBuffer(CharSequence original) {
+        this(original, DEFAULT_HISTORY_LIMIT);
+    }
+
+    /**
+     * Constructor with a custom history limit (approximate bytes of undo/redo state)
+     */
+    public TextBuffer(CharSequence original, long historyLimitBytes) {
+        if (historyLimitBytes < 0) {
+            throw new IllegalArgumentException("History limit must not be negative");
+        }
+        this.original = original.toString();
+        this.historyLimitBytes = historyLimitBytes;
+        if (!this.original.isEmpty()) {
+            root = new Piece(false, 0, this.original.length());
+        }
+    }
+
+    /**
+     * Insert text at position
+     * Time Complexity: O(log p + k) expected
+     */
+    public void insert(int position, CharSequence text) {
+        checkPosition(position);
+        if (text.length() == 0) {
+            return;
+        }
+        if ((long) length() + text.length() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Document cannot exceed " + Integer.MAX_VALUE + " characters");
+        }
+        int start = added.length();
+        added.append(text);
+        paste(position, new Piece(true, start, text.length()));
+
+        record(new Edit(true, position, text.length(), EDIT_BYTES + PIECE_BYTES + 2L * text.length(), null));
+    }
+
+    /**
+     * Delete length characters starting at position
+     * Time Complexity: O(log p) expected
+     */
+    public void delete(int position, int length) {
+        checkPosition(position);
+        if (length < 0 || length > length() - position) {
+            throw new IndexOutOfBoundsException("position=" + position + " length=" + length + " size=" + length());
+        }
+        if (length == 0) {
+            return;
+        }
+        Piece removed = cut(position, length);
+
+        record(new Edit(false, position, length, EDIT_BYTES + (long) PIECE_BYTES * removed.count, removed));
+    }
+
+    /**
+     * Replace length characters at position with text, as one undo step
+     */
+    public void replace(int position, int length, CharSequence text) {
+        beginGroup();
+        try {
+            delete(position, length);
+            insert(position, text);
+        } finally {
+            endGroup();
+        }
+    }
+
+    /**
+     * Start an undo group; groups nest, and the outermost endGroup closes it
+     */
+    public void beginGroup() {
+        if (groupDepth++ == 0) {
+            openGroup = new Group();
+        }
+    }
+
+    public void endGroup() {
+        if (groupDepth == 0) {
+            throw new IllegalStateException("No undo group is open");
+        }
+        if (--groupDepth == 0) {
+            Group group = openGroup;
+            openGroup = null;
+            if (!group.edits.isEmpty()) {
+                pushUndo(group);
+            }
+        }
+    }
+
+    /**
+     * Undo the most recent group of edits
+     * Time Complexity: O(log p) expected per edit
+     *
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        checkNoOpenGroup();
+        Group group = undoStack.pollLast();
+        if (group == null) {
+            return false;
+        }
+        for (int i = group.edits.size() - 1; i >= 0; i--) {
+            revert(group.edits.get(i));
+        }
+        redoStack.addLast(group);
+        return true;
+    }
+
+    /**
+     * Redo the most recently undone group of edits
+     * Time Complexity: O(log p) expected per edit
+     *
+     * @return false if there was nothing to redo
+     */
+    public boolean redo() {
+        checkNoOpenGroup();
+        Group group = redoStack.pollLast();
+        if (group == null) {
+            return false;
+        }
+        for (Edit edit : group.edits) {
+            apply(edit);
+        }
+        undoStack.addLast(group);
+        return true;
+    }
+
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+
+    /**
+     * Number of undo steps / redo steps available
+     */
+    public int undoDepth() {
+        return undoStack.size();
+    }
+
+    public int redoDepth() {
+        return redoStack.size();
+    }
+
+    /**
+     * Estimated bytes held by the undo and redo stacks
+     */
+    public long historyBytes() {
+        return historyBytes;
+    }
+
+    /**
+     * Forget all undo and redo steps
+     */
+    public void clearHistory() {
+        checkNoOpenGroup();
+        undoStack.clear();
+        redoStack.clear();
+        historyBytes = 0;
+    }
+
+    /**
+     * Number of characters in the document
+     * Time Complexity: O(1)
+     */
+    public int length() {
+        return root == null ? 0 : (int) root.total;
+    }
+
+    /**
+     * Number of pieces the document is made of
+     * Time Complexity: O(1)
+     */
+    public int pieceCount() {
+        return root == null ? 0 : root.count;
+    }
+
+    /**
+     * Characters typed so far, including ones deleted or undone since
+     */
+    public int addBufferLength() {
+        return added.length();
+    }
+
+    /**
+     * Character at index
+     * Time Complexity: O(log p) expected
+     */
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index=" + index + " size=" + length());
+        }
+        Piece node = root;
+        while (true) {
+            long leftTotal = total(node.left);
+            if (index < leftTotal) {
+                node = node.left;
+            } else if (index < leftTotal + node.length) {
+                return bufferOf(node).charAt(node.start + (int) (index - leftTotal));
+            } else {
+                index -= (int) (leftTotal + node.length);
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Text of [start, end)
+     * Time Complexity: O(log p + k)
+     */
+    public String substring(int start, int end) {
+        if (start < 0 || end < start || end > length()) {
+            throw new IndexOutOfBoundsException("start=" + start + " end=" + end + " size=" + length());
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        appendRange(root, start, end, sb);
+        return sb.toString();
+    }
+
+    /**
+     * The whole document
+     * Time Complexity: O(n)
+     */
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    private void record(Edit edit) {
+        // A new edit ends the redo branch
+        for (Group group : redoStack) {
+            historyBytes -= group.bytes;
+        }
+        redoStack.clear();
+        if (openGroup != null) {
+            openGroup.edits.add(edit);
+            openGroup.bytes += edit.bytes;
+            return;
+        }
+        Group group = new Group();
+        group.edits.add(edit);
+        group.bytes = edit.bytes;
+        pushUndo(group);
+    }
+
+    /**
+     * Push a finished group and forget the oldest ones while over the limit
+     */
+    private void pushUndo(Group group) {
+        undoStack.addLast(group);
+        historyBytes += group.bytes;
+        while (historyBytes > historyLimitBytes && !undoStack.isEmpty()) {
+            historyBytes -= undoStack.pollFirst().bytes;
+        }
+    }
+
+    private void apply(Edit edit) {
+        if (edit.insert) {
+            paste(edit.position, edit.removed);
+            edit.removed = null;
+        } else {
+            edit.removed = cut(edit.position, edit.length);
+        }
+    }
+
+    private void revert(Edit edit) {
+        if (edit.insert) {
+            edit.removed = cut(edit.position, edit.length);
+        } else {
+            paste(edit.position, edit.removed);
+            edit.removed = null;
+        }
+    }
+
+    /**
+     * Remove [position, position + length) from the document and return its pieces
+     */
+    private Piece cut(int position, int length) {
+        split(root, position);
+        Piece left = splitLeft;
+        split(splitRight, length);
+        Piece middle = splitLeft;
+        root = merge(left, splitRight);
+        return middle;
+    }
+
+    /**
+     * Put the pieces of subtree into the document at position
+     */
+    private void paste(int position, Piece subtree) {
+        split(root, position);
+        Piece right = splitRight;
+        root = merge(merge(splitLeft, subtree), right);
+    }
+
+    /**
+     * Split a treap into the first position characters (splitLeft) and the rest
+     * (splitRight), cutting a piece in two if position falls inside it
+     */
+    private void split(Piece node, long position) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        long leftTotal = total(node.left);
+        if (position <= leftTotal) {
+            split(node.left, position);
+            node.left = splitRight;
+            update(node);
+            splitRight = node;
+        } else if (position >= leftTotal + node.length) {
+            split(node.right, position - leftTotal - node.length);
+            node.right = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            int offset = (int) (position - leftTotal);
+            Piece head = new Piece(node.added, node.start, offset);
+            Piece tail = new Piece(node.added, node.start + offset, node.length - offset);
+            Piece left = merge(node.left, head);
+            Piece right = merge(tail, node.right);
+            splitLeft = left;
+            splitRight = right;
+        }
+    }
+
+    /**
+     * Concatenate two treaps, every piece of a before every piece of b
+     */
+    private Piece merge(Piece a, Piece b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private void update(Piece node) {
+        node.total = total(node.left) + node.length + total(node.right);
+        node.count = count(node.left) + 1 + count(node.right);
+    }
+
+    private void appendRange(Piece node, long start, long end, StringBuilder sb) {
+        while (node != null && start < end) {
+            long leftTotal = total(node.left);
+            if (start < leftTotal) {
+                appendRange(node.left, start, Math.min(end, leftTotal), sb);
+            }
+            long pieceEnd = leftTotal + node.length;
+            if (start < pieceEnd && end > leftTotal) {
+                int from = (int) (Math.max(start, leftTotal) - leftTotal);
+                int to = (int) (Math.min(end, pieceEnd) - leftTotal);
+                sb.append(bufferOf(node), node.start + from, node.start + to);
+            }
+            // Continue into the right subtree without recursing
+            start = Math.max(0, start - pieceEnd);
+            end -= pieceEnd;
+            node = node.right;
+        }
+    }
+
+    private CharSequence bufferOf(Piece piece) {
+        return piece.added ? added : original;
+    }
+
+    private static long total(Piece node) {
+        return node == null ? 0 : node.total;
+    }
+
+    private static int count(Piece node) {
+        return node == null ? 0 : node.count;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position > length()) {
+            throw new IndexOutOfBoundsException("position=" + position + " size=" + length());
+        }
+    }
+
+    private void checkNoOpenGroup() {
+        if (groupDepth != 0) {
+            throw new IllegalStateException("Close the undo group first");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package threading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Slot bookkeeping shared by {@link IntRingBuffer} and {@link RingBuffer}: a bounded
+ * multi-producer/multi-consumer array queue after Dmitry Vyukov's design.
+ *
+ * Every slot carries a sequence number. A producer may claim position {@code p} once the slot's
+ * sequence equals {@code p}; it publishes by setting it to {@code p + 1}. A consumer may claim
+ * position {@code p} once the sequence is {@code p + 1} and frees it by setting {@code p + capacity}.
+ * Claims are a single CAS on the padded tail or head cursor, so there is no lock anywhere.
+ */
+abstract class AbstractRingBuffer extends PaddedCursors {
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    final int capacity;
+    private final int mask;
+    private final long[] sequences;
+    final WaitStrategy waitStrategy;
+    final BooleanSupplier writable = this::writable;
+    final BooleanSupplier readable = this::readable;
+
+    AbstractRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.mask = Integer.bitCount(capacity) == 1 ? capacity - 1 : -1;
+        this.sequences = new long[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences[i] = i;
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Approximate under concurrent use.
+     */
+    public int size() {
+        long size = tail() - head();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return !readable();
+    }
+
+    /**
+     * @return the slot reserved for writing, or -1 if the buffer is full
+     */
+    final int claimWrite() {
+        long pos = tail();
+        while (true) {
+            int slot = index(pos);
+            long diff = sequence(slot) - pos;
+            if (diff == 0) {
+                if (casTail(pos, pos + 1)) {
+                    return slot;
+                }
+                pos = tail();
+            } else if (diff < 0) {
+                return -1;
+            } else {
+                pos = tail();
+            }
+        }
+    }
+
+    final void publish(int slot) {
+        SEQUENCE.setRelease(sequences, slot, sequences[slot] + 1);
+        waitStrategy.signal();
+    }
+
+    /**
+     * @return the slot reserved for reading, or -1 if the buffer is empty
+     */
+    final int claimRead() {
+        long pos = head();
+        while (true) {
+            int slot = index(pos);
+            long diff = sequence(slot) - (pos + 1);
+            if (diff == 0) {
+                if (casHead(pos, pos + 1)) {
+                    return slot;
+                }
+                pos = head();
+            } else if (diff < 0) {
+                return -1;
+            } else {
+                pos = head();
+            }
+        }
+    }
+
+    final void release(int slot) {
+        SEQUENCE.setRelease(sequences, slot, sequences[slot] - 1 + capacity);
+        waitStrategy.signal();
+    }
+
+    private boolean writable() {
+        long pos = tail();
+        return sequence(index(pos)) == pos;
+    }
+
+    private boolean readable() {
+        long pos = head();
+        return sequence(index(pos)) == pos + 1;
+    }
+
+    private long sequence(int slot) {
+        return (long) SEQUENCE.getAcquire(sequences, slot);
+    }
+
+    private int index(long pos) {
+        return mask >= 0 ? (int) pos & mask : (int) (pos % capacity);
+    }
+}
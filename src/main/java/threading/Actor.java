@@ -0,0 +1,11 @@
+package threading;
+
+/**
+ * Message handler of an actor. Messages are delivered one at a time, so state kept in the
+ * implementing object needs no locks or volatile fields.
+ */
+@FunctionalInterface
+public interface Actor<M> {
+
+    void receive(M message) throws Exception;
+}
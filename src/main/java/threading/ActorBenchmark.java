@@ -0,0 +1,131 @@
+package threading;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-sender message counters updated by several producer threads: a synchronized HashMap against
+ * the same map owned by one {@link Actor}, and by one actor per shard of senders.
+ *
+ * Usage: ActorBenchmark [producers] [messagesPerProducer] [senders] [throughput]
+ */
+public class ActorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int senderCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        int throughput = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        int shards = Runtime.getRuntime().availableProcessors();
+        String[] senders = new String[senderCount];
+        for (int i = 0; i < senderCount; i++) {
+            senders[i] = "sender-" + i;
+        }
+        long total = (long) producers * messages;
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "-- warm-up --" : "-- measured --");
+
+            Map<String, Long> locked = new HashMap<>();
+            report("synchronized HashMap", total, run(producers, messages, senders, sender -> {
+                synchronized (locked) {
+                    locked.merge(sender, 1L, Long::sum);
+                }
+            }, () -> sum(locked)));
+
+            try (ActorSystem system = ActorSystem.onPool(shards, throughput)) {
+                ActorRef<Object> counter = system.spawn("counter", new Counter(),
+                        new Mailbox<>(8192, Mailbox.Overflow.BLOCK, 1, TimeUnit.MINUTES));
+                report("one actor", total, run(producers, messages, senders, counter::tell,
+                        () -> counter.ask(Counter::query).join()));
+                if (round == 1) {
+                    System.out.println("  " + counter.stats());
+                }
+            }
+
+            try (ActorSystem system = ActorSystem.onPool(shards, throughput)) {
+                List<ActorRef<Object>> shard = new ArrayList<>(shards);
+                for (int i = 0; i < shards; i++) {
+                    shard.add(system.spawn("counter-" + i, new Counter(),
+                            new Mailbox<>(8192, Mailbox.Overflow.BLOCK, 1, TimeUnit.MINUTES)));
+                }
+                report(shards + " sharded actors", total, run(producers, messages, senders,
+                        sender -> shard.get(Math.floorMod(sender.hashCode(), shards)).tell(sender),
+                        () -> {
+                            long sum = 0;
+                            for (ActorRef<Object> ref : shard) {
+                                sum += ref.ask(Counter::query).join();
+                            }
+                            return sum;
+                        }));
+            }
+        }
+    }
+
+    private static long run(int producers, int messages, String[] senders, Sink sink, Total totalOf)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(producers);
+        long begin = System.nanoTime();
+        for (int p = 0; p < producers; p++) {
+            int offset = p;
+            new Thread(() -> {
+                for (int i = 0; i < messages; i++) {
+                    sink.accept(senders[(i + offset) % senders.length]);
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long counted = totalOf.get();
+        long elapsed = System.nanoTime() - begin;
+        if (counted != (long) producers * messages) {
+            throw new IllegalStateException("Counted " + counted + " of " + (long) producers * messages);
+        }
+        return elapsed;
+    }
+
+    private static long sum(Map<String, Long> counts) {
+        synchronized (counts) {
+            return counts.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    private static void report(String name, long messages, long nanos) {
+        System.out.printf("%-24s %7.1f M msgs/s%n", name, messages / (nanos / 1e9) / 1e6);
+    }
+
+    /**
+     * Plain HashMap, no locking: only the actor's turn touches it. A {@code CompletableFuture} message
+     * is a query for the total.
+     */
+    private static final class Counter implements Actor<Object> {
+        private final Map<String, Long> counts = new HashMap<>();
+
+        static Object query(CompletableFuture<Long> reply) {
+            return reply;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void receive(Object message) {
+            if (message instanceof CompletableFuture) {
+                ((CompletableFuture<Long>) message).complete(counts.values().stream().mapToLong(Long::longValue).sum());
+            } else {
+                counts.merge((String) message, 1L, Long::sum);
+            }
+        }
+    }
+
+    private interface Sink {
+        void accept(String sender);
+    }
+
+    private interface Total {
+        long get();
+    }
+}
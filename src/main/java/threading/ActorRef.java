@@ -0,0 +1,103 @@
+package threading;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Handle for sending messages to an actor spawned by an {@link ActorSystem}.
+ *
+ * The actor is scheduled onto the system's executor when its mailbox goes from idle to non-empty and
+ * runs at most {@code throughput} messages per turn before yielding the thread. The {@code scheduled}
+ * flag guarantees a single turn at a time, and its CAS orders each turn after the previous one, so the
+ * actor's state is handed between threads safely.
+ */
+public final class ActorRef<M> {
+    private final String name;
+    private final Actor<M> actor;
+    private final Mailbox<M> mailbox;
+    private final Executor executor;
+    private final int throughput;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable turn = this::runTurn;
+
+    ActorRef(String name, Actor<M> actor, Mailbox<M> mailbox, Executor executor, int throughput) {
+        this.name = name;
+        this.actor = actor;
+        this.mailbox = mailbox;
+        this.executor = executor;
+        this.throughput = throughput;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Send without waiting for processing.
+     *
+     * @return false if the mailbox's overflow policy discarded the message
+     */
+    public boolean tell(M message) {
+        if (!mailbox.offer(message)) {
+            return false;
+        }
+        // Pairs with the fence in runTurn: either we see the turn's reset or it sees our message.
+        VarHandle.fullFence();
+        schedule();
+        return true;
+    }
+
+    /**
+     * Send a message that carries its own reply future, e.g.
+     * {@code counters.ask(reply -> new Get(sender, reply))}.
+     */
+    public <R> CompletableFuture<R> ask(Function<CompletableFuture<R>, M> request) {
+        CompletableFuture<R> reply = new CompletableFuture<>();
+        if (!tell(request.apply(reply))) {
+            reply.completeExceptionally(new IllegalStateException("Mailbox of " + name + " is full"));
+        }
+        return reply;
+    }
+
+    public MailboxStats stats() {
+        return mailbox.stats(name);
+    }
+
+    private void runTurn() {
+        int processed = 0;
+        int failures = 0;
+        M message;
+        while (processed < throughput && (message = mailbox.poll()) != null) {
+            processed++;
+            try {
+                actor.receive(message);
+            } catch (Throwable e) {
+                failures++;
+                System.err.println("Actor " + name + " failed on " + message + ": " + e);
+            }
+        }
+        mailbox.turnCompleted(processed, failures);
+        scheduled.set(false);
+        VarHandle.fullFence();
+        // A sender that saw us still scheduled did not schedule us; pick its message up now.
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.get() || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(turn);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            throw e;
+        }
+    }
+}
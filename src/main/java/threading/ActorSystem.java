@@ -0,0 +1,75 @@
+package threading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link Actor}s on a shared executor.
+ *
+ * Each actor owns a bounded {@link Mailbox} and is only ever run by one thread at a time, so state
+ * that used to be guarded by {@code synchronized} (per-sender counters, session tables) can live in
+ * plain fields of the actor. {@link #onPool} shares a work-stealing pool between all actors;
+ * {@link #onVirtualThreads} gives every turn its own virtual thread, which suits actors that block.
+ * {@code throughput} bounds the messages per turn: higher means fewer hand-offs, lower means fairer
+ * sharing of the pool between busy actors.
+ */
+public class ActorSystem implements AutoCloseable {
+    private final ExecutorService executor;
+    private final int throughput;
+    private final List<ActorRef<?>> actors = new CopyOnWriteArrayList<>();
+
+    public ActorSystem(ExecutorService executor, int throughput) {
+        if (throughput <= 0) {
+            throw new IllegalArgumentException("Throughput must be positive");
+        }
+        this.executor = executor;
+        this.throughput = throughput;
+    }
+
+    public static ActorSystem onPool(int parallelism, int throughput) {
+        return new ActorSystem(new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                null, true), throughput);
+    }
+
+    public static ActorSystem onVirtualThreads(int throughput) {
+        return new ActorSystem(Executors.newVirtualThreadPerTaskExecutor(), throughput);
+    }
+
+    public <M> ActorRef<M> spawn(String name, Actor<M> actor) {
+        return spawn(name, actor, new Mailbox<>(1024, Mailbox.Overflow.DROP_NEW));
+    }
+
+    public <M> ActorRef<M> spawn(String name, Actor<M> actor, Mailbox<M> mailbox) {
+        ActorRef<M> ref = new ActorRef<>(name, actor, mailbox, executor, throughput);
+        actors.add(ref);
+        return ref;
+    }
+
+    public List<MailboxStats> stats() {
+        List<MailboxStats> stats = new ArrayList<>(actors.size());
+        for (ActorRef<?> actor : actors) {
+            stats.add(actor.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Stop accepting turns and wait for the running ones; messages still queued are not processed.
+     * If interrupted while waiting, running turns are interrupted too and the flag is restored.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
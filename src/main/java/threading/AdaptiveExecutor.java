@@ -0,0 +1,236 @@
+package threading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ThreadPoolExecutor whose pool size follows a {@link ConcurrencyLimit} and that never drops work
+ * silently.
+ *
+ * Each task's run time is fed to the limit after it finishes; when the limit moves, core and
+ * maximum pool size move with it. Tasks that do not fit in the work queue go to an explicit
+ * {@link Overflow} policy, and every outcome is counted. Queue wait (submit to start) is kept in a
+ * {@link LatencyHistogram}.
+ */
+public class AdaptiveExecutor extends ThreadPoolExecutor {
+
+    public enum Overflow {
+        /** Run the task on the submitting thread, which also throttles the submitter. */
+        CALLER_RUNS,
+        /** Wait up to the configured timeout for queue space, then throw RejectedExecutionException. */
+        BOUNDED_WAIT,
+        /** Park the task in an unbounded secondary queue that is fed back as workers free up. */
+        SPILL
+    }
+
+    // Stateless and static so the constructor does not hand a lambda capturing this to the superclass
+    private static final RejectedExecutionHandler OVERFLOW_HANDLER =
+            (task, executor) -> ((AdaptiveExecutor) executor).onOverflow(task);
+
+    private final ConcurrencyLimit limit;
+    private final Overflow overflow;
+    private final long waitNanos;
+    private final Queue<Runnable> spill = new ConcurrentLinkedQueue<>();
+    private final Object resizeLock = new Object();
+    private volatile int appliedLimit;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public AdaptiveExecutor(ConcurrencyLimit limit, BlockingQueue<Runnable> workQueue,
+                            Overflow overflow, long waitTimeout, TimeUnit unit) {
+        super(limit.current(), limit.current(), 60, TimeUnit.SECONDS, workQueue, OVERFLOW_HANDLER);
+        this.limit = limit;
+        this.overflow = overflow;
+        this.waitNanos = unit.toNanos(waitTimeout);
+        this.appliedLimit = limit.current();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedTask(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable task) {
+        if (task instanceof TimedTask) {
+            TimedTask timed = (TimedTask) task;
+            timed.startedAt = System.nanoTime();
+            queueWait.record(timed.startedAt - timed.enqueuedAt);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable task, Throwable error) {
+        if (error != null) {
+            failed.increment();
+        }
+        if (task instanceof TimedTask) {
+            limit.onSample(System.nanoTime() - ((TimedTask) task).startedAt, !getQueue().isEmpty() || !spill.isEmpty());
+            applyLimit();
+        }
+        drainSpill();
+    }
+
+    /**
+     * Also returns the tasks still in the spill queue, unwrapped, so nothing accepted is lost.
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>(super.shutdownNow());
+        Runnable next;
+        while ((next = spill.poll()) != null) {
+            pending.add(next);
+        }
+        getQueue().drainTo(pending);    // A worker may have moved a spilled task over meanwhile
+        List<Runnable> tasks = new ArrayList<>(pending.size());
+        for (Runnable task : pending) {
+            tasks.add(task instanceof TimedTask ? ((TimedTask) task).task : task);
+        }
+        return tasks;
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long callerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    public long spilledCount() {
+        return spilled.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Tasks waiting in the work queue plus the spill queue.
+     */
+    public int queuedCount() {
+        return getQueue().size() + spill.size();
+    }
+
+    public int currentLimit() {
+        return appliedLimit;
+    }
+
+    public LatencyHistogram queueWaitHistogram() {
+        return queueWait;
+    }
+
+    public String stats() {
+        return "limit=" + currentLimit()
+                + " active=" + getActiveCount()
+                + " queued=" + queuedCount()
+                + " completed=" + getCompletedTaskCount()
+                + " rejected=" + rejectedCount()
+                + " callerRuns=" + callerRunsCount()
+                + " spilled=" + spilledCount()
+                + " failed=" + failedCount()
+                + " queueWait[" + queueWait + "]";
+    }
+
+    private void onOverflow(Runnable task) {
+        if (isShutdown()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        switch (overflow) {
+            case CALLER_RUNS -> {
+                callerRuns.increment();
+                beforeExecute(Thread.currentThread(), task);
+                Throwable error = null;
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    error = e;
+                    throw e;
+                } finally {
+                    afterExecute(task, error);
+                }
+            }
+            case BOUNDED_WAIT -> {
+                try {
+                    if (getQueue().offer(task, waitNanos, TimeUnit.NANOSECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                rejected.increment();
+                throw new RejectedExecutionException("Queue still full after " + waitNanos / 1_000_000 + " ms");
+            }
+            case SPILL -> {
+                spilled.increment();
+                spill.add(task);
+                drainSpill();
+            }
+        }
+    }
+
+    /**
+     * Move spilled tasks back while the work queue has room. Called by the spilling thread right after
+     * it spills and by every worker after each task, so a spilled task cannot be stranded.
+     */
+    private void drainSpill() {
+        Runnable next;
+        while (getQueue().remainingCapacity() > 0 && (next = spill.poll()) != null) {
+            if (!getQueue().offer(next)) {
+                spill.add(next);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Grow maximum before core and shrink core before maximum, so core never exceeds maximum.
+     */
+    private void applyLimit() {
+        if (limit.current() == appliedLimit) {
+            return;
+        }
+        synchronized (resizeLock) {
+            int target = limit.current();
+            if (target == appliedLimit) {
+                return;
+            }
+            appliedLimit = target;
+            if (target > getMaximumPoolSize()) {
+                setMaximumPoolSize(target);
+                setCorePoolSize(target);
+            } else {
+                setCorePoolSize(target);
+                setMaximumPoolSize(target);
+            }
+        }
+    }
+
+    private static final class TimedTask implements Runnable {
+        final Runnable task;
+        final long enqueuedAt = System.nanoTime();
+        long startedAt;
+
+        TimedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
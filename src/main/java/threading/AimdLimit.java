@@ -0,0 +1,48 @@
+package threading;
+
+/**
+ * Additive-increase/multiplicative-decrease limit.
+ *
+ * The best latency seen recently is the baseline. A sample within {@code tolerance} times the
+ * baseline while work is queued grows the limit by roughly one per limit's worth of samples (one
+ * task per "round trip"); a slower sample multiplies it by {@code backoff}. The baseline drifts
+ * upward slowly so it can recover after a permanent shift in task cost.
+ */
+public class AimdLimit implements ConcurrencyLimit {
+    private final int min;
+    private final int max;
+    private final double tolerance;
+    private final double backoff;
+    private double limit;
+    private double baselineNanos = Double.MAX_VALUE;
+
+    public AimdLimit(int min, int initial, int max) {
+        this(min, initial, max, 2.0, 0.9);
+    }
+
+    public AimdLimit(int min, int initial, int max, double tolerance, double backoff) {
+        if (min <= 0 || initial < min || max < initial || tolerance < 1 || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("Invalid AIMD settings");
+        }
+        this.min = min;
+        this.max = max;
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+        this.limit = initial;
+    }
+
+    @Override
+    public synchronized int current() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized void onSample(long latencyNanos, boolean demandWaiting) {
+        baselineNanos = Math.min(baselineNanos * 1.001, latencyNanos);
+        if (latencyNanos > baselineNanos * tolerance) {
+            limit = Math.max(min, limit * backoff);
+        } else if (demandWaiting) {
+            limit = Math.min(max, limit + 1.0 / limit);
+        }
+    }
+}
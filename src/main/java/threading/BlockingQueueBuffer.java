@@ -1,12 +1,19 @@
 package threading;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
-
 public class BlockingQueueBuffer {
-    private BlockingQueue<Integer> queue = new LinkedBlockingDeque<>(10);
+    private static final int CAPACITY = 10;
+
+    private final IntRingBuffer queue;
+
+    public BlockingQueueBuffer() {
+        this(WaitStrategy.blocking());
+    }
+
+    public BlockingQueueBuffer(WaitStrategy waitStrategy) {
+        queue = new IntRingBuffer(CAPACITY, waitStrategy);
+    }
 
-    public void addItem(Integer item) {
+    public void addItem(int item) {
         try{
             queue.put(item);
         }catch (InterruptedException e){
@@ -15,7 +22,7 @@ public class BlockingQueueBuffer {
         }
     }
 
-    public Integer getItem(){
+    public int getItem(){
         try {
             return queue.take();
         }catch (InterruptedException e){
@@ -0,0 +1,172 @@
+package threading;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall clock that is read far more often than it changes.
+ *
+ * One background thread samples {@link System#currentTimeMillis()} every {@code resolutionMillis}
+ * and renders the local time once per change as {@code yyyy-MM-ddTHH:mm:ss.SSS} (string and bytes)
+ * and {@code HH:mm:ss}. Readers only load a volatile snapshot, so getting a timestamp allocates
+ * nothing; in exchange it can lag the real clock by up to one resolution step.
+ *
+ * The shared instance ticks every {@code -Dclock.resolutionMillis} ms (default 1).
+ */
+public final class CoarseClock implements AutoCloseable {
+    private static final CoarseClock SHARED = new CoarseClock(Long.getLong("clock.resolutionMillis", 1));
+
+    private final long resolutionMillis;
+    private final ZoneId zone;
+    private final ScheduledExecutorService ticker;
+    private volatile Tick tick;
+
+    // Only touched by the ticker thread (and the constructor before it starts).
+    private long offsetMillis;
+    private long offsetValidUntil = Long.MIN_VALUE;
+    private long epochDay = Long.MIN_VALUE;
+    private byte[] datePrefix;
+
+    public CoarseClock(long resolutionMillis) {
+        this(resolutionMillis, ZoneId.systemDefault());
+    }
+
+    public CoarseClock(long resolutionMillis, ZoneId zone) {
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("resolutionMillis must be positive");
+        }
+        this.resolutionMillis = resolutionMillis;
+        this.zone = zone;
+        update();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "coarse-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::update, resolutionMillis, resolutionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static CoarseClock shared() {
+        return SHARED;
+    }
+
+    public long resolutionMillis() {
+        return resolutionMillis;
+    }
+
+    public long currentTimeMillis() {
+        return tick.millis;
+    }
+
+    /**
+     * @return local date-time as {@code yyyy-MM-ddTHH:mm:ss.SSS}
+     */
+    public String isoTimestamp() {
+        return tick.isoString;
+    }
+
+    /**
+     * @return local time as {@code HH:mm:ss}
+     */
+    public String timeOfDay() {
+        return tick.timeOfDay;
+    }
+
+    /**
+     * Copy the ISO timestamp as ASCII bytes into {@code dst}.
+     *
+     * @return number of bytes written
+     */
+    public int copyIsoTimestamp(byte[] dst, int offset) {
+        byte[] iso = tick.iso;
+        System.arraycopy(iso, 0, dst, offset, iso.length);
+        return iso.length;
+    }
+
+    public void writeIsoTimestamp(OutputStream out) throws IOException {
+        out.write(tick.iso);
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    private void update() {
+        long now = System.currentTimeMillis();
+        Tick previous = tick;
+        if (previous != null && previous.millis == now) {
+            return;
+        }
+        boolean offsetChanged = now >= offsetValidUntil;
+        if (offsetChanged) {
+            refreshOffset(now);
+        }
+        long local = now + offsetMillis;
+        long day = Math.floorDiv(local, 86_400_000L);
+        if (day != epochDay) {
+            epochDay = day;
+            datePrefix = (LocalDate.ofEpochDay(day) + "T").getBytes(StandardCharsets.US_ASCII);
+        }
+        int millisOfDay = (int) Math.floorMod(local, 86_400_000L);
+        int secondOfDay = millisOfDay / 1000;
+
+        byte[] iso = new byte[datePrefix.length + 12];
+        System.arraycopy(datePrefix, 0, iso, 0, datePrefix.length);
+        int p = datePrefix.length;
+        putTwoDigits(iso, p, secondOfDay / 3600);
+        iso[p + 2] = ':';
+        putTwoDigits(iso, p + 3, secondOfDay / 60 % 60);
+        iso[p + 5] = ':';
+        putTwoDigits(iso, p + 6, secondOfDay % 60);
+        iso[p + 8] = '.';
+        int millis = millisOfDay % 1000;
+        iso[p + 9] = (byte) ('0' + millis / 100);
+        putTwoDigits(iso, p + 10, millis % 100);
+
+        String timeOfDay = !offsetChanged && previous != null && previous.epochSecond == Math.floorDiv(now, 1000)
+                ? previous.timeOfDay
+                : new String(iso, p, 8, StandardCharsets.US_ASCII);
+        tick = new Tick(now, iso, timeOfDay);
+    }
+
+    /**
+     * The zone offset is looked up once and reused until the zone's next transition (DST change).
+     */
+    private void refreshOffset(long now) {
+        Instant instant = Instant.ofEpochMilli(now);
+        offsetMillis = zone.getRules().getOffset(instant).getTotalSeconds() * 1000L;
+        ZoneOffsetTransition next = zone.getRules().nextTransition(instant);
+        offsetValidUntil = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+        epochDay = Long.MIN_VALUE;
+    }
+
+    private static void putTwoDigits(byte[] dst, int offset, int value) {
+        dst[offset] = (byte) ('0' + value / 10);
+        dst[offset + 1] = (byte) ('0' + value % 10);
+    }
+
+    private static final class Tick {
+        final long millis;
+        final long epochSecond;
+        final byte[] iso;
+        final String isoString;
+        final String timeOfDay;
+
+        Tick(long millis, byte[] iso, String timeOfDay) {
+            this.millis = millis;
+            this.epochSecond = Math.floorDiv(millis, 1000);
+            this.iso = iso;
+            this.isoString = new String(iso, StandardCharsets.US_ASCII);
+            this.timeOfDay = timeOfDay;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package threading;
+
+/**
+ * Decides how many tasks may run at once from the latencies they report.
+ */
+public interface ConcurrencyLimit {
+    int current();
+
+    /**
+     * @param latencyNanos  how long the task ran
+     * @param demandWaiting whether other tasks were queued behind it, i.e. a higher limit could be used
+     */
+    void onSample(long latencyNanos, boolean demandWaiting);
+}
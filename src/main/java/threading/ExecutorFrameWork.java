@@ -5,76 +5,290 @@ import java.net.Socket;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ExecutorFrameWork {
     private static final int THREAD_POOL_SIZE = 10;
-    private static final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE,
+            Thread.ofPlatform().name("sms-worker-", 0).factory());
+    private static final SmsArchive archive = SmsArchive.openDefault();
+    private static final SmsQueryHandler queryHandler = new SmsQueryHandler(archive);
+
+    private static final int STATE_FORWARDED = 1;
+    private static final long DELIVERY_REPORT_TTL = TimeUnit.HOURS.toMillis(24);
+    private static final String DELIVERY_REPORT_PATH = "/delivery/";
+    // Seeded with the start time so a late delivery report for an id from an earlier run cannot
+    // match a message of this one: a restart jumps past every id the previous run could have used
+    // unless it issued over 2^20 messages per millisecond of uptime.
+    private static final AtomicLong messageIds = new AtomicLong(System.currentTimeMillis() << 20);
+    private static final InFlightTable inFlight = new InFlightTable();
+    private static final RequestTracer tracer = RequestTracer.fromSystemProperties();
+    private static final CoarseClock clock = CoarseClock.shared();
+    private static final ThreadSampler sampler = ThreadSampler.fromSystemProperties(
+            Map.of("sms-worker-", "sms-worker", "thread-pool-", "thread-pool"));
+
+    static {
+        inFlight.startSweeper(TimeUnit.MINUTES.toMillis(1),
+                (id, state, attempts) -> log("No delivery report for message " + id));
+        if (Boolean.getBoolean("sms.profile")) {
+            sampler.start();
+        }
+    }
 
     public static void handleClient(Socket socket) {
-        executor.submit(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                 PrintWriter writer = new PrintWriter(socket.getOutputStream(), true)) {
-
-
-                String line;
-                int contentLength = 0;
-                while ((line = reader.readLine()) != null && !line.isEmpty()) {
-                    if (line.startsWith("Content-Length:")) {
-                        contentLength = Integer.parseInt(line.split(":")[1].trim());
-                    }
-                    System.out.println("Header: " + line);
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.submit(() -> handle(socket, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            reject("executor rejected", 0);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+    private static void handle(Socket socket, long enqueuedAt) {
+        SmsReceivedEvent received = new SmsReceivedEvent();
+        received.begin();
+        received.queueWait = System.nanoTime() - enqueuedAt;
+        long traceId = tracer.begin(enqueuedAt);
+        int span = tracer.start(RequestTracer.Stage.HANDLE_CLIENT);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             PrintWriter writer = new PrintWriter(socket.getOutputStream(), true)) {
+
+            SmsParsedEvent parsed = new SmsParsedEvent();
+            parsed.begin();
+            String requestLine = reader.readLine();
+            if (requestLine == null) {
+                socket.close();
+                return;
+            }
+            log("Header: " + requestLine);
+            String[] request = requestLine.split(" ");
+            received.method = request[0];
+            received.target = request.length > 1 ? request[1] : null;
+
+            String line;
+            int contentLength = 0;
+            int headerCount = 0;
+            String sender = "unknown";
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                if (line.startsWith("Content-Length:")) {
+                    contentLength = Integer.parseInt(line.split(":")[1].trim());
+                } else if (line.startsWith("X-Sender:")) {
+                    sender = line.substring("X-Sender:".length()).trim();
                 }
+                headerCount++;
+                log("Header: " + line);
+            }
+
+            char[] body = new char[contentLength];
+            reader.read(body);
+            String sms = new String(body).trim();
+            received.bodySize = contentLength;
+            parsed.headerCount = headerCount;
+            parsed.bodySize = contentLength;
+            parsed.commit();
 
-                char[] body = new char[contentLength];
-                reader.read(body);
-                String sms = new String(body).trim();
-                System.out.println("Received SMS: " + sms);
+            if (request.length > 1 && SmsQueryHandler.accepts(request[0], request[1])) {
+                queryHandler.handle(request[1], socket.getOutputStream());
+                socket.close();
+                return;
+            }
+            if (request.length > 1 && "GET".equals(request[0]) && "/traces".equals(request[1])) {
+                respond(writer, "application/json", tracer.toJson());
+                socket.close();
+                return;
+            }
+            if (request.length > 1 && "GET".equals(request[0]) && request[1].startsWith("/profile")) {
+                respond(writer, "text/plain", profile(request[1]));
+                socket.close();
+                return;
+            }
+            if (request.length > 1 && "POST".equals(request[0]) && request[1].startsWith(DELIVERY_REPORT_PATH)) {
+                deliveryReport(writer, request[1].substring(DELIVERY_REPORT_PATH.length()));
+                socket.close();
+                return;
+            }
 
+            log("Received SMS: " + sms);
 
-                processSMS(sms);
 
-                String responseBody = "SMS Received Successfully";
-                writer.println("HTTP/1.1 200 OK");
-                writer.println("Content-Type: text/plain");
-                writer.println("Content-Length: " + responseBody.length());
-                writer.println("Connection: close");
-                writer.println();
-                writer.println(responseBody);
-                writer.flush();
+            long messageId = processSMS(sender, sms);
 
-                socket.close();
+            String responseBody = "SMS Received Successfully";
+            writer.println("HTTP/1.1 200 OK");
+            writer.println("Content-Type: text/plain");
+            writer.println("Content-Length: " + responseBody.length());
+            writer.println("X-Trace-Id: " + Long.toHexString(traceId));
+            if (messageId != 0) {
+                writer.println("X-Message-Id: " + messageId);
+            }
+            writer.println("Connection: close");
+            writer.println();
+            writer.println(responseBody);
+            writer.flush();
 
-            } catch (IOException e) {
-                e.printStackTrace();
+            socket.close();
+
+        } catch (IOException | RuntimeException e) {
+            reject(e.getClass().getSimpleName() + ": " + e.getMessage(), received.bodySize);
+            e.printStackTrace();
+        } finally {
+            tracer.end(span);
+            tracer.finish();
+            received.commit();
+        }
+    }
+    /**
+     * {@code /profile/start}, {@code /profile/stop} and {@code /profile/reset} control the sampler,
+     * {@code /profile/folded} returns folded stacks for a flame graph, and {@code /profile} the per-pool
+     * and per-monitor report.
+     */
+    private static String profile(String target) {
+        return switch (target) {
+            case "/profile/start" -> sampler.start() ? "Sampler started\n" : "Sampler already running\n";
+            case "/profile/stop" -> sampler.stop() ? "Sampler stopped\n" : "Sampler not running\n";
+            case "/profile/reset" -> {
+                sampler.reset();
+                yield "Sampler reset\n";
             }
-        });
+            case "/profile/folded" -> sampler.foldedStacks();
+            default -> sampler.report();
+        };
+    }
+
+    /**
+     * {@code POST /delivery/<messageId>}: the downstream server confirms a message it was forwarded.
+     */
+    private static void deliveryReport(PrintWriter writer, String id) {
+        long messageId;
+        try {
+            messageId = Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            respond(writer, "400 Bad Request", "text/plain", "Bad message id: " + id + "\n");
+            return;
+        }
+        if (deliveryReport(messageId)) {
+            respond(writer, "text/plain", "Delivery of message " + messageId + " recorded\n");
+        } else {
+            respond(writer, "404 Not Found", "text/plain", "Message " + messageId + " unknown or expired\n");
+        }
+    }
+
+    private static void respond(PrintWriter writer, String contentType, String body) {
+        respond(writer, "200 OK", contentType, body);
+    }
+
+    private static void respond(PrintWriter writer, String status, String contentType, String body) {
+        writer.println("HTTP/1.1 " + status);
+        writer.println("Content-Type: " + contentType);
+        writer.println("Content-Length: " + body.getBytes().length);
+        writer.println("Connection: close");
+        writer.println();
+        writer.print(body);
+        writer.flush();
+    }
+
+    private static void reject(String reason, int bodySize) {
+        SmsRejectedEvent rejected = new SmsRejectedEvent();
+        if (rejected.shouldCommit()) {
+            rejected.reason = reason;
+            rejected.bodySize = bodySize;
+            rejected.commit();
+        }
     }
     private static void insertIntoDatabase(String sms) {
-        String url = "jdbc:mysql://localhost:3306/microservices";
-        String user = "veer";
-        String password = "1234";
         String query = "INSERT INTO sms_logs (message) VALUES (?)";
 
-        try (Connection conn = DriverManager.getConnection(url, user, password);
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            stmt.setString(1, sms);
-            stmt.executeUpdate();
-            System.out.println("Inserted into DB: " + sms);
+        SmsPersistedEvent persisted = new SmsPersistedEvent();
+        persisted.begin();
+        persisted.messageSize = sms.length();
+        int span = tracer.start(RequestTracer.Stage.INSERT_INTO_DATABASE);
+        long connectStart = System.nanoTime();
+        try (Connection conn = getConnection()) {
+            persisted.connectTime = System.nanoTime() - connectStart;
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setString(1, sms);
+                stmt.executeUpdate();
+                persisted.succeeded = true;
+                log("Inserted into DB: " + sms);
+            }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            tracer.end(span);
+            persisted.commit();
         }
     }
-    private static void processSMS(String sms) {
+    private static Connection getConnection() throws SQLException {
+        String url = "jdbc:mysql://localhost:3306/microservices";
+        String user = "veer";
+        String password = "1234";
+
+        int span = tracer.start(RequestTracer.Stage.GET_CONNECTION);
+        try {
+            return DriverManager.getConnection(url, user, password);
+        } finally {
+            tracer.end(span);
+        }
+    }
+    /**
+     * @return the id the message was forwarded under, or 0 if processing failed
+     */
+    private static long processSMS(String sender, String sms) {
+        int span = tracer.start(RequestTracer.Stage.PROCESS_SMS);
         try {
             insertIntoDatabase(sms);
-            sendToAnotherServer(sms);
+            int archiving = tracer.start(RequestTracer.Stage.ARCHIVE);
+            try {
+                archive.append(sender, sms);
+            } finally {
+                tracer.end(archiving);
+            }
+            long messageId = messageIds.incrementAndGet();
+            sendToAnotherServer(messageId, sms);
+            return messageId;
         } catch (Exception e) {
+            reject("processing failed: " + e.getMessage(), sms.length());
             e.printStackTrace();
+            return 0;
+        } finally {
+            tracer.end(span);
+        }
+    }
+    private static void sendToAnotherServer(long messageId, String sms) {
+        SmsForwardedEvent forwarded = new SmsForwardedEvent();
+        forwarded.begin();
+        int span = tracer.start(RequestTracer.Stage.SEND_TO_ANOTHER_SERVER);
+        try {
+            inFlight.put(messageId, STATE_FORWARDED, 1, DELIVERY_REPORT_TTL);
+            // The id travels with the message; the receiver reports back with POST /delivery/<id>
+            log("Forwarded message " + messageId + ": " + sms);
+        } finally {
+            tracer.end(span);
+            forwarded.messageId = messageId;
+            forwarded.messageSize = sms.length();
+            forwarded.commit();
         }
     }
-    private static void sendToAnotherServer(String sms) {
-        System.out.println("Response: " + sms);
+
+    /**
+     * Correlate a delivery report with the forwarded message and stop tracking it.
+     *
+     * @return false if the message was unknown or had already expired
+     */
+    public static boolean deliveryReport(long messageId) {
+        return inFlight.remove(messageId) != InFlightTable.ABSENT;
+    }
+
+    private static void log(String message) {
+        System.out.println(clock.isoTimestamp() + " " + message);
     }
 }
@@ -1,19 +1,23 @@
 package threading;
 
+import java.math.BigInteger;
+
 public class FibonacciNuber {
     public int n;
     public String id;
-    private long memo[] = new long[60];
+    private final FibonacciService service;
+
     public FibonacciNuber(int n, String id) {
+        this(n, id, FibonacciService.shared());
+    }
+
+    public FibonacciNuber(int n, String id, FibonacciService service) {
         this.n = n;
         this.id = id;
-        for(int i=0;i<60;i++){
-            memo[i]=-1;
-        }
+        this.service = service;
     }
-    public long fib(int n){
-        if(n<=1)return memo[n]=n ;
-        if(memo[n]!=-1) return memo[n];
-        return memo[n]= fib(n-1)+(fib(n-2));
+
+    public BigInteger fib(int n){
+        return service.fib(n);
     }
 }
@@ -0,0 +1,161 @@
+package threading;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Exact Fibonacci numbers of any size, shared by all tasks.
+ *
+ * Uses fast doubling: from (F(k), F(k+1)) one step yields (F(2k), F(2k+1)) with
+ * F(2k) = F(k) * (2F(k+1) - F(k)) and F(2k+1) = F(k)^2 + F(k+1)^2, so F(n) takes O(log n) steps.
+ * Once operands get large, the three products of a step are forked onto the common ForkJoin pool
+ * and each uses {@link BigInteger#parallelMultiply}.
+ *
+ * Computed pairs are cached. A request starts from the longest cached prefix of its bit pattern
+ * (F(2n) after F(n) is a single step), and concurrent requests for the same n share one computation.
+ */
+public class FibonacciService {
+    private static final FibonacciService SHARED = new FibonacciService(4096);
+
+    private static final int PARALLEL_THRESHOLD_BITS = 1 << 17;
+    private static final long[] SMALL = new long[93];
+
+    static {
+        SMALL[1] = 1;
+        for (int i = 2; i < SMALL.length; i++) {
+            SMALL[i] = SMALL[i - 1] + SMALL[i - 2];
+        }
+    }
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<Integer, CompletableFuture<BigInteger[]>> cache = new ConcurrentHashMap<>();
+
+    public FibonacciService(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    public static FibonacciService shared() {
+        return SHARED;
+    }
+
+    /**
+     * @throws ArithmeticException if F(n) does not fit in a long (n &gt; 92)
+     */
+    public static long fibLong(int n) {
+        checkIndex(n);
+        if (n >= SMALL.length) {
+            throw new ArithmeticException("F(" + n + ") overflows long");
+        }
+        return SMALL[n];
+    }
+
+    public BigInteger fib(int n) {
+        checkIndex(n);
+        if (n < SMALL.length) {
+            return BigInteger.valueOf(SMALL[n]);
+        }
+        return pair(n)[0];
+    }
+
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * @return {F(n), F(n+1)}
+     */
+    private BigInteger[] pair(int n) {
+        CompletableFuture<BigInteger[]> cached = cache.get(n);
+        if (cached == null) {
+            CompletableFuture<BigInteger[]> mine = new CompletableFuture<>();
+            cached = cache.putIfAbsent(n, mine);
+            if (cached == null) {
+                try {
+                    mine.complete(compute(n));
+                } catch (RuntimeException | Error e) {
+                    cache.remove(n, mine);
+                    mine.completeExceptionally(e);
+                    throw e;
+                }
+                evictIfFull();
+                return mine.join();
+            }
+        }
+        try {
+            return cached.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for F(" + n + ")", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("F(" + n + ") failed", e.getCause());
+        }
+    }
+
+    private BigInteger[] compute(int n) {
+        // Find the longest prefix of n's bits whose pair is already cached.
+        int shift = 32 - Integer.numberOfLeadingZeros(n);
+        BigInteger a = BigInteger.ZERO;
+        BigInteger b = BigInteger.ONE;
+        for (int s = 1; s < shift; s++) {
+            CompletableFuture<BigInteger[]> prefix = cache.get(n >>> s);
+            if (prefix != null && prefix.isDone() && !prefix.isCompletedExceptionally()) {
+                BigInteger[] known = prefix.join();
+                a = known[0];
+                b = known[1];
+                shift = s;
+                break;
+            }
+        }
+
+        for (int bit = shift - 1; bit >= 0; bit--) {
+            BigInteger[] doubled = doubleStep(a, b);
+            a = doubled[0];
+            b = doubled[1];
+            if (((n >>> bit) & 1) != 0) {
+                BigInteger next = a.add(b);
+                a = b;
+                b = next;
+            }
+        }
+        return new BigInteger[]{a, b};
+    }
+
+    /**
+     * (F(k), F(k+1)) to (F(2k), F(2k+1)).
+     */
+    private static BigInteger[] doubleStep(BigInteger a, BigInteger b) {
+        BigInteger twoBMinusA = b.shiftLeft(1).subtract(a);
+        if (b.bitLength() < PARALLEL_THRESHOLD_BITS) {
+            return new BigInteger[]{a.multiply(twoBMinusA), a.multiply(a).add(b.multiply(b))};
+        }
+        ForkJoinTask<BigInteger> even = ForkJoinTask.adapt(() -> a.parallelMultiply(twoBMinusA)).fork();
+        ForkJoinTask<BigInteger> aSquared = ForkJoinTask.adapt(() -> a.parallelMultiply(a)).fork();
+        BigInteger bSquared = b.parallelMultiply(b);
+        return new BigInteger[]{even.join(), aSquared.join().add(bSquared)};
+    }
+
+    private void evictIfFull() {
+        Iterator<Integer> keys = cache.keySet().iterator();
+        while (cache.size() > maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static void checkIndex(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must be non-negative: " + n);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package threading;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends rows as NDJSON ({@code {"id":..,"message":".."}}), one line per SMS.
+ */
+public class FileSmsSink implements SmsSink {
+    private final BufferedWriter out;
+
+    public FileSmsSink(Path file) throws IOException {
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(List<SmsRow> batch) throws IOException {
+        StringBuilder lines = new StringBuilder(batch.size() * 64);
+        for (SmsRow row : batch) {
+            lines.append("{\"id\":").append(row.getId()).append(",\"message\":");
+            Json.quote(lines, row.getMessage()).append("}\n");
+        }
+        synchronized (out) {
+            out.append(lines);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
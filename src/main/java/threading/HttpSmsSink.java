@@ -0,0 +1,44 @@
+package threading;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Replays rows into a running SMS server (see {@link ThreadMain}) as plain POST requests,
+ * one connection per SMS because the server closes each connection after responding.
+ */
+public class HttpSmsSink implements SmsSink {
+    private final String host;
+    private final int port;
+
+    public HttpSmsSink(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public void write(List<SmsRow> batch) throws IOException {
+        for (SmsRow row : batch) {
+            byte[] body = row.getMessage().getBytes(StandardCharsets.UTF_8);
+            try (Socket socket = new Socket(host, port)) {
+                OutputStream out = socket.getOutputStream();
+                out.write(("POST / HTTP/1.1\r\n"
+                        + "Host: " + host + "\r\n"
+                        + "X-Sender: replay\r\n"
+                        + "Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(body);
+                out.flush();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                String status = reader.readLine();
+                if (status == null || !status.contains(" 200 ")) {
+                    throw new IOException("Replay of SMS " + row.getId() + " failed: " + status);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package threading;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap table of forwarded messages that are still waiting for a delivery report.
+ *
+ * Keys are 64-bit message ids, values are fixed-width slots in direct ByteBuffers, so millions of
+ * outstanding messages cost the GC nothing but a handful of buffer objects. The key space is split
+ * into independently locked stripes; each stripe is a linear-probing table that grows by migrating
+ * a few slots per operation instead of copying everything at once.
+ *
+ * Slot layout (32 bytes): [long id][long expiresAt][long updatedAt][int state][int aux]
+ * State 0 marks an empty slot and -1 a deleted one, so callers must use positive states.
+ */
+public class InFlightTable {
+    public static final int ABSENT = 0;
+    private static final int TOMBSTONE = -1;
+
+    private static final int SLOT_BYTES = 32;
+    private static final int ID = 0;
+    private static final int EXPIRES_AT = 8;
+    private static final int UPDATED_AT = 16;
+    private static final int STATE = 24;
+    private static final int AUX = 28;
+
+    private static final int MIN_STRIPE_CAPACITY = 64;
+    private static final int MAX_STRIPE_CAPACITY = Integer.MAX_VALUE / SLOT_BYTES + 1 >>> 1;
+    private static final int MIGRATE_PER_OP = 64;
+    private static final float MAX_LOAD = 0.7f;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+    private ScheduledExecutorService sweeper;
+
+    public InFlightTable() {
+        this(64, 1 << 14);
+    }
+
+    /**
+     * @param stripes         number of independently locked partitions, rounded up to a power of two
+     * @param initialCapacity expected number of outstanding messages
+     */
+    public InFlightTable(int stripes, int initialCapacity) {
+        int stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit((stripes - 1) << 1);
+        int perStripe = Math.max(MIN_STRIPE_CAPACITY,
+                Integer.highestOneBit(Math.max(1, (int) (initialCapacity / MAX_LOAD / stripeCount)) << 1));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(Math.min(perStripe, MAX_STRIPE_CAPACITY));
+        }
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+    }
+
+    /**
+     * Insert or overwrite the entry for {@code id}.
+     *
+     * @return true if the id was not tracked before
+     */
+    public boolean put(long id, int state, int aux, long ttlMillis) {
+        checkState(state);
+        long now = System.currentTimeMillis();
+        long hash = mix(id);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return stripe.put(id, hash, state, aux, now + ttlMillis, now);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the state of {@code id}, or {@link #ABSENT} if it is not tracked
+     */
+    public int getState(long id) {
+        return (int) read(id, STATE);
+    }
+
+    public int getAux(long id) {
+        return (int) read(id, AUX);
+    }
+
+    public long getUpdatedAt(long id) {
+        return read(id, UPDATED_AT);
+    }
+
+    /**
+     * Move {@code id} from {@code expected} to {@code update} atomically, e.g. FORWARDED to DELIVERED.
+     */
+    public boolean compareAndSetState(long id, int expected, int update) {
+        checkState(update);
+        long hash = mix(id);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            Table table = stripe.locate(id, hash);
+            if (table == null) {
+                return false;
+            }
+            int slot = stripe.foundSlot;
+            if (table.buffer.getInt(slot + STATE) != expected) {
+                return false;
+            }
+            table.buffer.putInt(slot + STATE, update);
+            table.buffer.putLong(slot + UPDATED_AT, System.currentTimeMillis());
+            return true;
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the state the entry had, or {@link #ABSENT}
+     */
+    public int remove(long id) {
+        long hash = mix(id);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.writeLock();
+        try {
+            return stripe.remove(id, hash);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * Drop every entry whose TTL passed before {@code now}. Stripes are swept one at a time,
+     * so writers only ever wait for the stripe currently being scanned.
+     *
+     * @return number of expired entries
+     */
+    public int sweepExpired(long now, ExpiryListener listener) {
+        int expired = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                expired += stripe.sweep(stripe.current, now, listener);
+                if (stripe.previous != null) {
+                    expired += stripe.sweep(stripe.previous, now, listener);
+                }
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+        return expired;
+    }
+
+    public synchronized void startSweeper(long periodMillis, ExpiryListener listener) {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-flight-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(() -> sweepExpired(System.currentTimeMillis(), listener),
+                periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    private long read(long id, int field) {
+        long hash = mix(id);
+        Stripe stripe = stripe(hash);
+        long stamp = stripe.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            long value = stripe.peek(id, hash, field);
+            if (stripe.lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = stripe.lock.readLock();
+        try {
+            return stripe.peek(id, hash, field);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[stripeShift == 64 ? 0 : (int) (hash >>> stripeShift)];
+    }
+
+    private static void checkState(int state) {
+        if (state <= 0) {
+            throw new IllegalArgumentException("State must be positive: " + state);
+        }
+    }
+
+    private static long mix(long id) {
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        id *= 0xc4ceb9fe1a85ec53L;
+        return id ^ (id >>> 33);
+    }
+
+    public interface ExpiryListener {
+        void expired(long id, int state, int aux);
+    }
+
+    /**
+     * One open-addressing array. Capacity is fixed for the lifetime of the table; growing
+     * means allocating a new Table and migrating into it.
+     */
+    private static final class Table {
+        final ByteBuffer buffer;
+        final int mask;
+        int used;           // live entries plus tombstones
+
+        Table(int capacity) {
+            this.buffer = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+            this.mask = capacity - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        /**
+         * Linear probe for {@code id}. Bounded by capacity so a torn optimistic read cannot loop forever.
+         *
+         * @return byte offset of the slot holding {@code id}, or -1
+         */
+        int find(long id, long hash) {
+            int index = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int slot = index * SLOT_BYTES;
+                int state = buffer.getInt(slot + STATE);
+                if (state == ABSENT) {
+                    return -1;
+                }
+                if (state != TOMBSTONE && buffer.getLong(slot + ID) == id) {
+                    return slot;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        void insert(long id, long hash, int state, int aux, long expiresAt, long updatedAt) {
+            int index = (int) hash & mask;
+            while (true) {
+                int slot = index * SLOT_BYTES;
+                int current = buffer.getInt(slot + STATE);
+                if (current == ABSENT || current == TOMBSTONE) {
+                    if (current == ABSENT) {
+                        used++;
+                    }
+                    write(slot, id, state, aux, expiresAt, updatedAt);
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        void write(int slot, long id, int state, int aux, long expiresAt, long updatedAt) {
+            buffer.putLong(slot + ID, id);
+            buffer.putLong(slot + EXPIRES_AT, expiresAt);
+            buffer.putLong(slot + UPDATED_AT, updatedAt);
+            buffer.putInt(slot + AUX, aux);
+            buffer.putInt(slot + STATE, state);
+        }
+    }
+
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        Table current;
+        Table previous;     // non-null while a resize is migrating slots
+        int migrated;       // next slot index of previous to migrate
+        int foundSlot;      // slot located by the last locate(), only valid under the write lock
+        volatile int size;
+
+        Stripe(int capacity) {
+            this.current = new Table(capacity);
+        }
+
+        Table locate(long id, long hash) {
+            migrateStep();
+            foundSlot = current.find(id, hash);
+            if (foundSlot >= 0) {
+                return current;
+            }
+            if (previous != null) {
+                foundSlot = previous.find(id, hash);
+                if (foundSlot >= 0) {
+                    return previous;
+                }
+            }
+            return null;
+        }
+
+        long peek(long id, long hash, int field) {
+            Table table = current;
+            int slot = table.find(id, hash);
+            if (slot < 0) {
+                table = previous;
+                if (table == null || (slot = table.find(id, hash)) < 0) {
+                    return ABSENT;
+                }
+            }
+            return field == STATE || field == AUX
+                    ? table.buffer.getInt(slot + field)
+                    : table.buffer.getLong(slot + field);
+        }
+
+        boolean put(long id, long hash, int state, int aux, long expiresAt, long now) {
+            Table table = locate(id, hash);
+            if (table != null) {
+                table.write(foundSlot, id, state, aux, expiresAt, now);
+                return false;
+            }
+            if (previous == null && current.used + 1 > current.capacity() * MAX_LOAD) {
+                startResize();
+            }
+            current.insert(id, hash, state, aux, expiresAt, now);
+            size++;
+            return true;
+        }
+
+        int remove(long id, long hash) {
+            Table table = locate(id, hash);
+            if (table == null) {
+                return ABSENT;
+            }
+            int state = table.buffer.getInt(foundSlot + STATE);
+            table.buffer.putInt(foundSlot + STATE, TOMBSTONE);
+            size--;
+            return state;
+        }
+
+        int sweep(Table table, long now, ExpiryListener listener) {
+            int expired = 0;
+            ByteBuffer buffer = table.buffer;
+            for (int slot = 0; slot < buffer.capacity(); slot += SLOT_BYTES) {
+                int state = buffer.getInt(slot + STATE);
+                if (state > 0 && buffer.getLong(slot + EXPIRES_AT) <= now) {
+                    buffer.putInt(slot + STATE, TOMBSTONE);
+                    size--;
+                    expired++;
+                    if (listener != null) {
+                        listener.expired(buffer.getLong(slot + ID), state, buffer.getInt(slot + AUX));
+                    }
+                }
+            }
+            return expired;
+        }
+
+        /**
+         * Tombstone-heavy tables are rebuilt at the same size; genuinely full ones double.
+         */
+        private void startResize() {
+            int capacity = current.capacity();
+            if (size + 1 > capacity * MAX_LOAD / 2 && capacity < MAX_STRIPE_CAPACITY) {
+                capacity <<= 1;
+            }
+            previous = current;
+            current = new Table(capacity);
+            migrated = 0;
+        }
+
+        /**
+         * Move a bounded number of slots from the old table into the new one. Lookups consult both
+         * tables until the old one is fully drained.
+         */
+        private void migrateStep() {
+            Table old = previous;
+            if (old == null) {
+                return;
+            }
+            ByteBuffer buffer = old.buffer;
+            int end = Math.min(old.capacity(), migrated + MIGRATE_PER_OP);
+            for (; migrated < end; migrated++) {
+                int slot = migrated * SLOT_BYTES;
+                int state = buffer.getInt(slot + STATE);
+                if (state > 0) {
+                    long id = buffer.getLong(slot + ID);
+                    current.insert(id, mix(id), state, buffer.getInt(slot + AUX),
+                            buffer.getLong(slot + EXPIRES_AT), buffer.getLong(slot + UPDATED_AT));
+                    buffer.putInt(slot + STATE, TOMBSTONE);
+                }
+            }
+            if (migrated == old.capacity()) {
+                previous = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package threading;
+
+/**
+ * Lock-free bounded MPMC queue of unboxed ints. Nothing is allocated per element.
+ */
+public class IntRingBuffer extends AbstractRingBuffer {
+    private final int[] slots;
+
+    public IntRingBuffer(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    public IntRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.slots = new int[capacity];
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    public boolean offer(int value) {
+        int slot = claimWrite();
+        if (slot < 0) {
+            return false;
+        }
+        slots[slot] = value;
+        publish(slot);
+        return true;
+    }
+
+    /**
+     * @return the head element, or {@code ifEmpty} if there is none
+     */
+    public int poll(int ifEmpty) {
+        int slot = claimRead();
+        if (slot < 0) {
+            return ifEmpty;
+        }
+        int value = slots[slot];
+        release(slot);
+        return value;
+    }
+
+    public void put(int value) throws InterruptedException {
+        while (!offer(value)) {
+            waitStrategy.await(writable);
+        }
+    }
+
+    public int take() throws InterruptedException {
+        while (true) {
+            int slot = claimRead();
+            if (slot >= 0) {
+                int value = slots[slot];
+                release(slot);
+                return value;
+            }
+            waitStrategy.await(readable);
+        }
+    }
+}
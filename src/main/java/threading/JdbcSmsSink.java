@@ -0,0 +1,75 @@
+package threading;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Writes batches into another database with one JDBC batch per call. For MySQL add
+ * {@code rewriteBatchedStatements=true} to the URL so a batch becomes a single multi-row INSERT.
+ * Rows are upserted by id, so a batch replayed after a resumed backfill overwrites instead of failing.
+ */
+public class JdbcSmsSink implements SmsSink {
+    private static final String QUERY = "INSERT INTO sms_logs (id, message) VALUES (?, ?)"
+            + " ON DUPLICATE KEY UPDATE message = VALUES(message)";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final ThreadLocal<Connection> connections = new ThreadLocal<>();
+    private final Queue<Connection> opened = new ConcurrentLinkedQueue<>();
+
+    public JdbcSmsSink(String url, String user, String password) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+    }
+
+    @Override
+    public void write(List<SmsRow> batch) throws SQLException {
+        Connection conn = connections.get();
+        if (conn == null || conn.isClosed()) {
+            conn = DriverManager.getConnection(url, user, password);
+            conn.setAutoCommit(false);
+            connections.set(conn);
+            opened.add(conn);
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(QUERY)) {
+            for (SmsRow row : batch) {
+                stmt.setLong(1, row.getId());
+                stmt.setString(2, row.getMessage());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        SQLException failure = null;
+        Connection conn;
+        while ((conn = opened.poll()) != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;    // Keep closing the rest
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw new IOException("Failed to close sink connection", failure);
+        }
+    }
+}
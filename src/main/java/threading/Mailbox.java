@@ -0,0 +1,134 @@
+package threading;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded actor mailbox: the generic, non-blocking-by-default successor of {@link BlockingQueueBuffer}.
+ *
+ * Messages sit in a lock-free {@link RingBuffer}. When it is full the {@link Overflow} policy decides
+ * what happens to the new message, and every outcome is counted so a slow actor shows up in
+ * {@link #stats()} instead of as silent loss or a stalled sender.
+ */
+public class Mailbox<M> {
+
+    public enum Overflow {
+        /** Discard the incoming message; {@code offer} returns false. */
+        DROP_NEW,
+        /** Discard the oldest queued message to make room for the incoming one. */
+        DROP_OLDEST,
+        /** Wait up to the configured timeout for space, then discard the incoming message. */
+        BLOCK,
+        /** Throw {@link IllegalStateException} to the sender. */
+        FAIL
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final RingBuffer<M> queue;
+    private final Overflow overflow;
+    private final long blockNanos;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
+    public Mailbox(int capacity, Overflow overflow) {
+        this(capacity, overflow, 0, TimeUnit.MILLISECONDS);
+    }
+
+    public Mailbox(int capacity, Overflow overflow, long blockTimeout, TimeUnit unit) {
+        this.queue = new RingBuffer<>(capacity, WaitStrategy.spinning());
+        this.overflow = overflow;
+        this.blockNanos = unit.toNanos(blockTimeout);
+    }
+
+    /**
+     * @return true if the message was queued
+     * @throws IllegalStateException if full and the policy is {@link Overflow#FAIL}
+     */
+    public boolean offer(M message) {
+        if (queue.offer(message) || overflowed(message)) {
+            enqueued.increment();
+            trackDepth();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * @return the next message, or null if the mailbox is empty
+     */
+    public M poll() {
+        return queue.poll();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    public int capacity() {
+        return queue.capacity();
+    }
+
+    void turnCompleted(int messages, int failures) {
+        turns.increment();
+        processed.add(messages);
+        if (failures > 0) {
+            failed.add(failures);
+        }
+    }
+
+    public MailboxStats stats(String name) {
+        return new MailboxStats(name, capacity(), depth(), maxDepth.get(), enqueued.sum(), processed.sum(),
+                dropped.sum(), failed.sum(), turns.sum());
+    }
+
+    private boolean overflowed(M message) {
+        switch (overflow) {
+            case DROP_OLDEST -> {
+                while (!queue.offer(message)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                return true;
+            }
+            case BLOCK -> {
+                long deadline = System.nanoTime() + blockNanos;
+                while (System.nanoTime() - deadline < 0 && !Thread.currentThread().isInterrupted()) {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    if (queue.offer(message)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            case FAIL -> {
+                dropped.increment();
+                throw new IllegalStateException("Mailbox full (" + capacity() + ")");
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private void trackDepth() {
+        int depth = queue.size();
+        int max = maxDepth.get();
+        while (depth > max && !maxDepth.compareAndSet(max, depth)) {
+            max = maxDepth.get();
+        }
+    }
+}
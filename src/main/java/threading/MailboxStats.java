@@ -0,0 +1,80 @@
+package threading;
+
+/**
+ * Point-in-time counters of one actor's {@link Mailbox}.
+ */
+public class MailboxStats {
+    private final String name;
+    private final int capacity;
+    private final int depth;
+    private final int maxDepth;
+    private final long enqueued;
+    private final long processed;
+    private final long dropped;
+    private final long failed;
+    private final long turns;
+
+    public MailboxStats(String name, int capacity, int depth, int maxDepth, long enqueued, long processed,
+                        long dropped, long failed, long turns) {
+        this.name = name;
+        this.capacity = capacity;
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+        this.enqueued = enqueued;
+        this.processed = processed;
+        this.dropped = dropped;
+        this.failed = failed;
+        this.turns = turns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Number of times the actor was scheduled; processed / turns is the batch size actually achieved.
+     */
+    public long getTurns() {
+        return turns;
+    }
+
+    @Override
+    public String toString() {
+        return name
+                + " depth=" + depth + "/" + capacity
+                + " maxDepth=" + maxDepth
+                + " enqueued=" + enqueued
+                + " processed=" + processed
+                + " dropped=" + dropped
+                + " failed=" + failed
+                + " turns=" + turns;
+    }
+}
@@ -0,0 +1,65 @@
+package threading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Producer and consumer cursors of the ring buffers, each surrounded by 56 bytes of padding so
+ * they never share a cache line with each other or with neighbouring objects. The padding lives in
+ * superclasses because the JVM lays out a superclass's fields before the subclass's.
+ *
+ * Each cursor also has a plain cached copy of the other side's cursor for single-writer queues
+ * ({@link SpscIntQueue}); it sits with the cursor of the thread that owns it, inside the padding.
+ */
+abstract class PaddedCursors extends ConsumerCursorPad {
+    static final VarHandle TAIL;
+    static final VarHandle HEAD;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(ProducerCursor.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(ConsumerCursor.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final long tail() {
+        return (long) TAIL.getVolatile(this);
+    }
+
+    final long head() {
+        return (long) HEAD.getVolatile(this);
+    }
+
+    final boolean casTail(long expected, long update) {
+        return TAIL.weakCompareAndSet(this, expected, update);
+    }
+
+    final boolean casHead(long expected, long update) {
+        return HEAD.weakCompareAndSet(this, expected, update);
+    }
+}
+
+abstract class LeadingPad {
+    long p00, p01, p02, p03, p04, p05, p06;
+}
+
+abstract class ProducerCursor extends LeadingPad {
+    volatile long tail;
+    long headCache;     // Producer-only
+}
+
+abstract class ProducerCursorPad extends ProducerCursor {
+    long p10, p11, p12, p13, p14, p15, p16;
+}
+
+abstract class ConsumerCursor extends ProducerCursorPad {
+    volatile long head;
+    long tailCache;     // Consumer-only
+}
+
+abstract class ConsumerCursorPad extends ConsumerCursor {
+    long p20, p21, p22, p23, p24, p25, p26;
+}
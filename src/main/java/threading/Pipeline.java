@@ -0,0 +1,381 @@
+package threading;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Fluent builder for {@link Flow} pipelines with demand-driven backpressure.
+ *
+ * Each operator is a {@link PipelineStage} with its own bounded buffer, so the whole pipeline holds at
+ * most the sum of its buffer sizes and runs at the rate of its slowest stage: a consumer that stops
+ * requesting stops the stages before it, down to the source. Unlike {@link BlockingQueueBuffer} no
+ * producer thread ever blocks; a push-style producer can feed a {@link java.util.concurrent.SubmissionPublisher}
+ * passed to {@link #from} and choose between its blocking {@code submit} and dropping {@code offer}.
+ *
+ * <pre>
+ * Pipeline.fromIterable(lines, executor)
+ *         .filter(line -&gt; !line.isBlank())
+ *         .parallelMap(Parser::parse, 8, executor)
+ *         .batch(500, Duration.ofMillis(50))
+ *         .forEach(sink::write)
+ *         .join();
+ * </pre>
+ */
+public final class Pipeline<T> {
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pipeline-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Flow.Publisher<T> publisher;
+    private final int bufferSize;
+
+    private Pipeline(Flow.Publisher<T> publisher, int bufferSize) {
+        this.publisher = publisher;
+        this.bufferSize = bufferSize;
+    }
+
+    public static <T> Pipeline<T> from(Flow.Publisher<T> publisher) {
+        return new Pipeline<>(publisher, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Emit {@code items} on {@code executor}, never faster than they are requested.
+     */
+    public static <T> Pipeline<T> fromIterable(Iterable<? extends T> items, Executor executor) {
+        return from(subscriber -> subscriber.onSubscribe(new IterableSubscription<T>(items.iterator(), subscriber, executor)));
+    }
+
+    /**
+     * Buffer size of the stages added after this call.
+     */
+    public Pipeline<T> bufferSize(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        return new Pipeline<>(publisher, size);
+    }
+
+    public <R> Pipeline<R> map(Function<? super T, ? extends R> mapper) {
+        return then(new MapStage<>(mapper, bufferSize));
+    }
+
+    public Pipeline<T> filter(Predicate<? super T> predicate) {
+        return then(new FilterStage<>(predicate, bufferSize));
+    }
+
+    /**
+     * Group items into lists of {@code maxSize}; a partial list is emitted once its first item has
+     * waited {@code maxWait}, and at completion.
+     */
+    public Pipeline<List<T>> batch(int maxSize, Duration maxWait) {
+        return then(new BatchStage<>(maxSize, maxWait.toNanos(), bufferSize));
+    }
+
+    /**
+     * Apply {@code mapper} on {@code executor} to up to {@code parallelism} items at a time,
+     * emitting the results in input order.
+     */
+    public <R> Pipeline<R> parallelMap(Function<? super T, ? extends R> mapper, int parallelism, Executor executor) {
+        return then(new ParallelMapStage<>(mapper, parallelism, executor));
+    }
+
+    public Flow.Publisher<T> publisher() {
+        return publisher;
+    }
+
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Run {@code action} for every item on the thread that delivers it.
+     *
+     * @return completes when the pipeline does, or exceptionally on the first error
+     */
+    public CompletableFuture<Void> forEach(Consumer<? super T> action) {
+        ForEachSubscriber<T> subscriber = new ForEachSubscriber<>(action, bufferSize);
+        publisher.subscribe(subscriber);
+        return subscriber.completion;
+    }
+
+    private <R> Pipeline<R> then(PipelineStage<T, R> stage) {
+        publisher.subscribe(stage);
+        return new Pipeline<>(stage, bufferSize);
+    }
+
+    private static final class MapStage<T, R> extends PipelineStage<T, R> {
+        private final Function<? super T, ? extends R> mapper;
+
+        MapStage(Function<? super T, ? extends R> mapper, int capacity) {
+            super(capacity, Math.max(1, capacity / 2));
+            this.mapper = mapper;
+        }
+
+        @Override
+        void onItem(T item) {
+            emit(mapper.apply(item));
+        }
+    }
+
+    private static final class FilterStage<T> extends PipelineStage<T, T> {
+        private final Predicate<? super T> predicate;
+
+        FilterStage(Predicate<? super T> predicate, int capacity) {
+            super(capacity, Math.max(1, capacity / 2));
+            this.predicate = predicate;
+        }
+
+        @Override
+        void onItem(T item) {
+            if (predicate.test(item)) {
+                emit(item);
+            }
+        }
+    }
+
+    /**
+     * The open batch counts as one held buffer entry, so flushing it (by size, timer or completion)
+     * never overflows the buffer.
+     */
+    private static final class BatchStage<T> extends PipelineStage<T, List<T>> {
+        private final int maxSize;
+        private final long maxWaitNanos;
+        private final ReentrantLock lock = new ReentrantLock();
+        private List<T> open;
+        private long generation;
+        private volatile int held;
+
+        BatchStage(int maxSize, long maxWaitNanos, int capacity) {
+            super(capacity, Math.max(1, capacity / 2));
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive");
+            }
+            this.maxSize = maxSize;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        @Override
+        void onItem(T item) {
+            lock.lock();
+            try {
+                if (open == null) {
+                    open = new ArrayList<>(Math.min(maxSize, 1024));
+                    held = 1;
+                    if (maxSize > 1) {
+                        long scheduled = generation;
+                        TIMER.schedule(() -> flushIfStill(scheduled), maxWaitNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+                open.add(item);
+                if (open.size() == maxSize) {
+                    flush();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        void onUpstreamComplete() {
+            lock.lock();
+            try {
+                if (open != null) {
+                    flush();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        int held() {
+            return held;
+        }
+
+        private void flushIfStill(long scheduled) {
+            lock.lock();
+            try {
+                if (open == null || generation != scheduled) {
+                    return;
+                }
+                flush();
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        }
+
+        private void flush() {
+            emit(open);
+            open = null;
+            generation++;
+            held = 0;
+        }
+    }
+
+    /**
+     * Buffer entries are the futures themselves, in input order; the head is delivered once done.
+     */
+    private static final class ParallelMapStage<T, R> extends PipelineStage<T, R> {
+        private final Function<? super T, ? extends R> mapper;
+        private final Executor executor;
+
+        ParallelMapStage(Function<? super T, ? extends R> mapper, int parallelism, Executor executor) {
+            super(parallelism, 1);
+            this.mapper = mapper;
+            this.executor = executor;
+        }
+
+        @Override
+        void onItem(T item) {
+            CompletableFuture<R> result = CompletableFuture.supplyAsync(() -> mapper.apply(item), executor);
+            emit(result);
+            result.whenComplete((value, error) -> drain());
+        }
+
+        @Override
+        boolean isReady(Object entry) {
+            return ((CompletableFuture<?>) entry).isDone();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        R unwrap(Object entry) throws Throwable {
+            try {
+                return ((CompletableFuture<R>) entry).join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static final class IterableSubscription<T> implements Flow.Subscription, Runnable {
+        private final Iterator<? extends T> iterator;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        IterableSubscription(Iterator<? extends T> iterator, Flow.Subscriber<? super T> subscriber, Executor executor) {
+            this.iterator = iterator;
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                long requested = demand.get();
+                long emitted = 0;
+                try {
+                    while (emitted != requested && !cancelled && iterator.hasNext()) {
+                        subscriber.onNext(iterator.next());
+                        emitted++;
+                    }
+                    if (!cancelled && invalidRequest != null) {
+                        cancelled = true;
+                        subscriber.onError(invalidRequest);
+                    } else if (!cancelled && !iterator.hasNext()) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                } catch (Throwable e) {
+                    if (!cancelled) {
+                        cancelled = true;
+                        subscriber.onError(e);
+                    }
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    private static final class ForEachSubscriber<T> implements Flow.Subscriber<T> {
+        private final Consumer<? super T> action;
+        private final int batch;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private int received;
+
+        ForEachSubscriber(Consumer<? super T> action, int bufferSize) {
+            this.action = action;
+            this.batch = bufferSize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            completion.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    subscription.cancel();
+                }
+            });
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            try {
+                action.accept(item);
+            } catch (Throwable e) {
+                completion.completeExceptionally(e);
+                return;
+            }
+            if (++received == Math.max(1, batch / 2)) {
+                received = 0;
+                subscription.request(Math.max(1, batch / 2));
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completion.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.complete(null);
+        }
+    }
+}
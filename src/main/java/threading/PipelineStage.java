@@ -0,0 +1,252 @@
+package threading;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One operator of a {@link Pipeline}: a {@link Flow.Processor} with a bounded {@link RingBuffer}
+ * between its upstream and its single downstream subscriber.
+ *
+ * Credit accounting keeps memory bounded: items requested from upstream but not yet received, plus
+ * entries in the buffer, plus whatever the operator holds back ({@link #held()}), never exceed the
+ * capacity. Upstream is asked for more only once at least {@code replenish} credits are free, so a
+ * slow downstream throttles every stage before it instead of filling memory.
+ *
+ * Every downstream signal is sent from {@link #drain()}, which the work-in-progress counter makes
+ * single-threaded no matter which thread (upstream, downstream or an operator's own) triggers it.
+ * Operators call {@link #emit} at most once per received item (a batch counts once).
+ */
+abstract class PipelineStage<T, R> implements Flow.Processor<T, R>, Flow.Subscription {
+    private final int capacity;
+    private final int replenish;
+    private final RingBuffer<Object> buffer;
+
+    private final AtomicReference<Flow.Subscriber<? super R>> subscriber = new AtomicReference<>();
+    private volatile Flow.Subscriber<? super R> downstream;    // Set only once onSubscribe has returned
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile Flow.Subscription upstream;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+
+    // Owned by drain().
+    private Object head;
+    private boolean terminated;
+
+    PipelineStage(int capacity, int replenish) {
+        if (capacity <= 0 || replenish <= 0 || replenish > capacity) {
+            throw new IllegalArgumentException("Need 0 < replenish <= capacity");
+        }
+        this.capacity = capacity;
+        this.replenish = replenish;
+        this.buffer = new RingBuffer<>(capacity);
+    }
+
+    /**
+     * Handle one upstream item, calling {@link #emit} zero or one time.
+     */
+    abstract void onItem(T item) throws Exception;
+
+    /**
+     * Called once upstream completes, before completion is passed on; flush held state here.
+     */
+    void onUpstreamComplete() {
+    }
+
+    /**
+     * Buffer entries the operator is holding outside the buffer (0 or 1).
+     */
+    int held() {
+        return 0;
+    }
+
+    /**
+     * Whether the entry at the head of the buffer can be delivered yet.
+     */
+    boolean isReady(Object entry) {
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    R unwrap(Object entry) throws Throwable {
+        return (R) entry;
+    }
+
+    final void emit(Object entry) {
+        if (!buffer.offer(entry)) {
+            throw new IllegalStateException("Upstream delivered more items than requested");
+        }
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        if (!this.subscriber.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(NoopSubscription.INSTANCE);
+            subscriber.onError(new IllegalStateException("A pipeline stage supports a single subscriber"));
+            return;
+        }
+        // drain() sends nothing downstream until onSubscribe has returned (Reactive Streams 1.9);
+        // requests made from inside onSubscribe are recorded and served right after.
+        try {
+            subscriber.onSubscribe(this);
+        } catch (Throwable e) {
+            cancelled = true;   // A subscriber that throws from onSubscribe is treated as cancelled
+        }
+        downstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public final void onNext(T item) {
+        try {
+            onItem(item);
+        } catch (Throwable e) {
+            error = e;
+        }
+        outstanding.decrementAndGet();
+        drain();
+    }
+
+    @Override
+    public final void onError(Throwable throwable) {
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public final void onComplete() {
+        try {
+            onUpstreamComplete();
+        } catch (Throwable e) {
+            error = e;
+        }
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            error = new IllegalArgumentException("Non-positive request: " + n);
+        } else {
+            demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        drain();
+    }
+
+    final void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super R> subscriber = downstream;
+            if (terminated) {
+                clear();
+            } else if (cancelled) {
+                terminate();
+            } else if (subscriber != null) {
+                deliver(subscriber);
+            } else {
+                replenish();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void deliver(Flow.Subscriber<? super R> subscriber) {
+        long requested = demand.get();
+        long emitted = 0;
+        while (emitted != requested && error == null) {
+            if (head == null) {
+                head = buffer.poll();
+            }
+            if (head == null || !isReady(head)) {
+                break;
+            }
+            Object entry = head;
+            head = null;
+            try {
+                subscriber.onNext(unwrap(entry));
+                emitted++;
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+        if (emitted != 0 && requested != Long.MAX_VALUE) {
+            demand.addAndGet(-emitted);
+        }
+
+        Throwable failure = error;
+        if (failure != null) {
+            terminate();
+            subscriber.onError(failure);
+        } else if (done && head == null && buffer.isEmpty()) {
+            terminated = true;
+            subscriber.onComplete();
+        } else {
+            replenish();
+        }
+    }
+
+    private void replenish() {
+        Flow.Subscription subscription = upstream;
+        if (subscription == null || done) {
+            return;
+        }
+        int credits = capacity - outstanding.get() - buffer.size() - (head != null ? 1 : 0) - held();
+        if (credits >= replenish) {
+            outstanding.addAndGet(credits);
+            subscription.request(credits);
+        }
+    }
+
+    private void terminate() {
+        terminated = true;
+        Flow.Subscription subscription = upstream;
+        if (subscription != null && !done) {
+            subscription.cancel();
+        }
+        clear();
+    }
+
+    private void clear() {
+        head = null;
+        while (buffer.poll() != null) {
+            // discard
+        }
+    }
+
+    static final class NoopSubscription implements Flow.Subscription {
+        static final NoopSubscription INSTANCE = new NoopSubscription();
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package threading;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lightweight per-request tracing for the SMS pipeline.
+ *
+ * Every request is timed into a thread-local, preallocated {@link Trace}, so recording a span is two
+ * {@code System.nanoTime()} calls and a few array stores. When the request finishes it is kept if it
+ * was head-sampled (decided up front with probability {@code sampleRate}) or if it turned out slower
+ * than {@code slowNanos} (tail sampling). Kept traces are copied into a fixed ring of slots that is
+ * allocated once; the oldest trace is overwritten when the ring is full.
+ */
+public class RequestTracer {
+    public enum Stage {
+        QUEUED("queued"),
+        HANDLE_CLIENT("handleClient"),
+        PROCESS_SMS("processSMS"),
+        INSERT_INTO_DATABASE("insertIntoDatabase"),
+        GET_CONNECTION("getConnection"),
+        ARCHIVE("archive"),
+        SEND_TO_ANOTHER_SERVER("sendToAnotherServer");
+
+        private final String spanName;
+
+        Stage(String spanName) {
+            this.spanName = spanName;
+        }
+    }
+
+    public static final int MAX_SPANS = 16;
+    private static final Stage[] STAGES = Stage.values();
+
+    private final double sampleRate;
+    private final long slowNanos;
+    private final Slot[] ring;
+    private final AtomicLong written = new AtomicLong();
+    private final ThreadLocal<Trace> current = ThreadLocal.withInitial(Trace::new);
+
+    public RequestTracer(double sampleRate, long slowMillis, int capacity) {
+        if (sampleRate < 0 || sampleRate > 1 || capacity <= 0) {
+            throw new IllegalArgumentException("Invalid tracer settings");
+        }
+        this.sampleRate = sampleRate;
+        this.slowNanos = slowMillis * 1_000_000;
+        this.ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot();
+        }
+    }
+
+    public static RequestTracer fromSystemProperties() {
+        return new RequestTracer(
+                Double.parseDouble(System.getProperty("sms.trace.sampleRate", "0.01")),
+                Long.getLong("sms.trace.slowMillis", 500),
+                Integer.getInteger("sms.trace.capacity", 1024));
+    }
+
+    /**
+     * Start a trace on the current thread. The time between {@code enqueuedNanos} and now is
+     * recorded as the {@link Stage#QUEUED} span.
+     *
+     * @return the trace id
+     */
+    public long begin(long enqueuedNanos) {
+        Trace trace = current.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        trace.traceId = random.nextLong();
+        trace.headSampled = random.nextDouble() < sampleRate;
+        trace.startNanos = enqueuedNanos;
+        trace.spanCount = 0;
+        trace.depth = 0;
+        trace.active = true;
+        end(start(Stage.QUEUED, enqueuedNanos));
+        return trace.traceId;
+    }
+
+    /**
+     * @return a span handle for {@link #end(int)}, or -1 if nothing is being traced
+     */
+    public int start(Stage stage) {
+        return start(stage, System.nanoTime());
+    }
+
+    public void end(int span) {
+        if (span < 0) {
+            return;
+        }
+        Trace trace = current.get();
+        trace.ends[span] = System.nanoTime();
+        trace.depth--;
+    }
+
+    /**
+     * Finish the current thread's trace and keep it if it was sampled or slow.
+     */
+    public void finish() {
+        Trace trace = current.get();
+        if (!trace.active) {
+            return;
+        }
+        trace.active = false;
+        long duration = System.nanoTime() - trace.startNanos;
+        boolean slow = duration >= slowNanos;
+        if (trace.headSampled || slow) {
+            ring[(int) (written.getAndIncrement() % ring.length)].copyFrom(trace, duration, slow);
+        }
+    }
+
+    /**
+     * Render every retained trace, oldest first, as a JSON array.
+     */
+    public String toJson() {
+        StringBuilder out = new StringBuilder(4096).append('[');
+        long end = written.get();
+        long start = Math.max(0, end - ring.length);
+        boolean first = true;
+        Slot copy = new Slot();
+        for (long i = start; i < end; i++) {
+            if (!ring[(int) (i % ring.length)].snapshotInto(copy)) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            copy.appendJson(out);
+        }
+        return out.append(']').toString();
+    }
+
+    private int start(Stage stage, long nanos) {
+        Trace trace = current.get();
+        if (!trace.active || trace.spanCount == MAX_SPANS) {
+            return -1;
+        }
+        int span = trace.spanCount++;
+        trace.stages[span] = (byte) stage.ordinal();
+        trace.depths[span] = (byte) trace.depth++;
+        trace.starts[span] = nanos;
+        trace.ends[span] = nanos;
+        return span;
+    }
+
+    private static final class Trace {
+        final byte[] stages = new byte[MAX_SPANS];
+        final byte[] depths = new byte[MAX_SPANS];
+        final long[] starts = new long[MAX_SPANS];
+        final long[] ends = new long[MAX_SPANS];
+        long traceId;
+        long startNanos;
+        boolean headSampled;
+        boolean active;
+        int spanCount;
+        int depth;
+    }
+
+    /**
+     * Retained trace. Writers bump {@code version} to odd before copying and back to even after,
+     * so a dump can detect and skip a slot that is being overwritten.
+     */
+    private static final class Slot {
+        final byte[] stages = new byte[MAX_SPANS];
+        final byte[] depths = new byte[MAX_SPANS];
+        final long[] starts = new long[MAX_SPANS];
+        final long[] durations = new long[MAX_SPANS];
+        volatile long version;
+        long traceId;
+        long durationNanos;
+        boolean slow;
+        int spanCount;
+
+        synchronized void copyFrom(Trace trace, long duration, boolean slow) {
+            version++;
+            VarHandle.storeStoreFence();    // The odd version must be visible before any field changes
+            traceId = trace.traceId;
+            durationNanos = duration;
+            this.slow = slow;
+            spanCount = trace.spanCount;
+            System.arraycopy(trace.stages, 0, stages, 0, spanCount);
+            System.arraycopy(trace.depths, 0, depths, 0, spanCount);
+            for (int i = 0; i < spanCount; i++) {
+                starts[i] = trace.starts[i] - trace.startNanos;
+                durations[i] = trace.ends[i] - trace.starts[i];
+            }
+            version++;
+        }
+
+        boolean snapshotInto(Slot copy) {
+            long before = version;
+            if ((before & 1) != 0 || before == 0) {
+                return false;
+            }
+            copy.traceId = traceId;
+            copy.durationNanos = durationNanos;
+            copy.slow = slow;
+            copy.spanCount = Math.min(spanCount, MAX_SPANS);
+            System.arraycopy(stages, 0, copy.stages, 0, copy.spanCount);
+            System.arraycopy(depths, 0, copy.depths, 0, copy.spanCount);
+            System.arraycopy(starts, 0, copy.starts, 0, copy.spanCount);
+            System.arraycopy(durations, 0, copy.durations, 0, copy.spanCount);
+            // A volatile read does not stop the plain reads above from moving after it
+            VarHandle.loadLoadFence();
+            return version == before;
+        }
+
+        void appendJson(StringBuilder out) {
+            out.append("{\"traceId\":\"").append(Long.toHexString(traceId))
+                    .append("\",\"sampling\":\"").append(slow ? "tail" : "head")
+                    .append("\",\"durationMicros\":").append(durationNanos / 1000)
+                    .append(",\"spans\":[");
+            for (int i = 0; i < spanCount; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append("{\"name\":\"").append(STAGES[stages[i]].spanName)
+                        .append("\",\"depth\":").append(depths[i])
+                        .append(",\"startMicros\":").append(starts[i] / 1000)
+                        .append(",\"durationMicros\":").append(durations[i] / 1000)
+                        .append('}');
+            }
+            out.append("]}");
+        }
+    }
+}
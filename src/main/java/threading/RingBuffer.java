@@ -0,0 +1,65 @@
+package threading;
+
+import java.util.Objects;
+
+/**
+ * Lock-free bounded MPMC queue of references; the generic sibling of {@link IntRingBuffer}.
+ */
+public class RingBuffer<E> extends AbstractRingBuffer {
+    private final Object[] slots;
+
+    public RingBuffer(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    public RingBuffer(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.slots = new Object[capacity];
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    public boolean offer(E value) {
+        Objects.requireNonNull(value);
+        int slot = claimWrite();
+        if (slot < 0) {
+            return false;
+        }
+        slots[slot] = value;
+        publish(slot);
+        return true;
+    }
+
+    /**
+     * @return the head element, or null if the buffer is empty
+     */
+    public E poll() {
+        int slot = claimRead();
+        return slot < 0 ? null : consume(slot);
+    }
+
+    public void put(E value) throws InterruptedException {
+        while (!offer(value)) {
+            waitStrategy.await(writable);
+        }
+    }
+
+    public E take() throws InterruptedException {
+        while (true) {
+            int slot = claimRead();
+            if (slot >= 0) {
+                return consume(slot);
+            }
+            waitStrategy.await(readable);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E consume(int slot) {
+        E value = (E) slots[slot];
+        slots[slot] = null;
+        release(slot);
+        return value;
+    }
+}
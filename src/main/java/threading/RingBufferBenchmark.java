@@ -0,0 +1,108 @@
+package threading;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Hand-off throughput of the old LinkedBlockingDeque-backed buffer against {@link IntRingBuffer}
+ * with each wait strategy, for the same number of producers and consumers.
+ *
+ * Usage: RingBufferBenchmark [threadsPerSide] [itemsPerProducer]
+ */
+public class RingBufferBenchmark {
+    private static final int CAPACITY = 1024;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "-- warm-up --" : "-- measured --");
+            report("LinkedBlockingDeque<Integer>", threads, items, run(threads, items, new Queue() {
+                final BlockingQueue<Integer> queue = new LinkedBlockingDeque<>(CAPACITY);
+
+                public void put(int value) throws InterruptedException {
+                    queue.put(value);
+                }
+
+                public int take() throws InterruptedException {
+                    return queue.take();
+                }
+            }));
+            String[] names = {"spinning", "yielding", "parking", "blocking"};
+            WaitStrategy[] strategies = {WaitStrategy.spinning(), WaitStrategy.yielding(),
+                    WaitStrategy.parking(), WaitStrategy.blocking()};
+            for (int i = 0; i < names.length; i++) {
+                IntRingBuffer buffer = new IntRingBuffer(CAPACITY, strategies[i]);
+                report("IntRingBuffer/" + names[i], threads, items, run(threads, items, new Queue() {
+                    public void put(int value) throws InterruptedException {
+                        buffer.put(value);
+                    }
+
+                    public int take() throws InterruptedException {
+                        return buffer.take();
+                    }
+                }));
+            }
+        }
+    }
+
+    private static long run(int threads, int items, Queue queue) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads * 2);
+        long[] checksums = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int consumer = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < items; i++) {
+                        queue.put(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }).start();
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long sum = 0;
+                    for (int i = 0; i < items; i++) {
+                        sum += queue.take();
+                    }
+                    checksums[consumer] = sum;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        long expected = (long) threads * items * (items - 1L) / 2;
+        long actual = 0;
+        for (long checksum : checksums) {
+            actual += checksum;
+        }
+        if (actual != expected) {
+            throw new IllegalStateException("Lost or duplicated items: " + actual + " != " + expected);
+        }
+        return elapsed;
+    }
+
+    private static void report(String name, int threads, int items, long nanos) {
+        double perSecond = (double) threads * items / (nanos / 1e9);
+        System.out.printf("%-30s %6.1f M items/s%n", name, perSecond / 1e6);
+    }
+
+    private interface Queue {
+        void put(int value) throws InterruptedException;
+
+        int take() throws InterruptedException;
+    }
+}
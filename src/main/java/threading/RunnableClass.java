@@ -1,9 +1,12 @@
 package threading;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 public class RunnableClass implements Runnable{
+    private static final CoarseClock clock = CoarseClock.shared();
     private FibonacciNuber fibonacciNuber;
 
     public RunnableClass(int n, String id) {
@@ -11,10 +14,26 @@ public class RunnableClass implements Runnable{
     }
     @Override
     public void run() {
-        DateTimeFormatter isoFormater = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-        System.out.println("Starting Task " + fibonacciNuber.id+" at "+isoFormater.format(LocalDateTime.now()));
+        System.out.println("Starting Task " + fibonacciNuber.id+" at "+clock.isoTimestamp());
         fibonacciNuber.fib(fibonacciNuber.n);
-        System.out.println("Ending Task " + fibonacciNuber.id+" at "+isoFormater.format(LocalDateTime.now()));
+        System.out.println("Ending Task " + fibonacciNuber.id+" at "+clock.isoTimestamp());
+    }
+
+    /**
+     * Run {@code tasks} as one batch, each on its own virtual thread, and wait for all of them.
+     * Under {@link TaskGroup.Policy#FAIL_FAST} the first failure cancels the rest and is rethrown.
+     */
+    public static TaskGroup.Stats runBatch(List<RunnableClass> tasks, TaskGroup.Policy policy, Duration deadline)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try (TaskGroup<Void> group = new TaskGroup<>(policy, deadline)) {
+            for (RunnableClass task : tasks) {
+                group.fork(() -> {
+                    task.run();
+                    return null;
+                });
+            }
+            return group.join().stats();
+        }
     }
 
 }
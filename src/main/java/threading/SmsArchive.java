@@ -0,0 +1,45 @@
+package threading;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Keeps the segment log and its time index together: every accepted SMS is appended to the log
+ * and indexed, and reads are answered from the index without going near MySQL. Segments that fall
+ * wholly out of the index's retention window are deleted, on startup before replay and as new
+ * records arrive.
+ */
+public class SmsArchive {
+    private static final Path DEFAULT_DIRECTORY = Paths.get("sms-segments");
+
+    private final SmsSegmentLog log;
+    private final SmsTimeIndex index;
+
+    public SmsArchive(SmsSegmentLog log, SmsTimeIndex index) throws IOException {
+        this.log = log;
+        this.index = index;
+        log.deleteSegmentsBefore(index.retentionCutoff(System.currentTimeMillis()));
+        log.forEach(index::add);
+    }
+
+    public static SmsArchive openDefault() {
+        try {
+            return new SmsArchive(new SmsSegmentLog(DEFAULT_DIRECTORY), new SmsTimeIndex());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void append(String sender, String message) throws IOException {
+        SmsRecord record = new SmsRecord(System.currentTimeMillis(), sender, message);
+        index.add(log.append(record.getTimestamp(), sender, message), record);
+        log.deleteSegmentsBefore(index.retentionCutoff(record.getTimestamp()));
+    }
+
+    public String query(long from, long to, String sender, String cursor, int limit,
+                        SmsTimeIndex.RecordSink sink) throws IOException {
+        return index.scan(from, to, sender, cursor, limit, log, sink);
+    }
+}
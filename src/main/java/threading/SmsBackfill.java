@@ -0,0 +1,338 @@
+package threading;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk export of {@code sms_logs} into any {@link SmsSink}.
+ *
+ * The id space is cut into fixed-size primary-key ranges that reader threads scan in parallel with
+ * streaming result sets. Rows are grouped into batches and handed to writer threads through a bounded
+ * queue, so reading and writing overlap without buffering the table in memory.
+ *
+ * Every written batch appends the id interval it covers to the checkpoint file: from the end of the
+ * previous batch of its range up to its last id (or the range end, for the last batch). A rerun
+ * subtracts those intervals from the id space before planning its ranges, so it resumes mid-range
+ * and copes with a different {@code rangeSize} or a moved {@code MIN(id)}. A crash between a sink
+ * write and its checkpoint line repeats at most one in-flight batch per writer thread. Only
+ * {@link JdbcSmsSink} is idempotent (it upserts); {@link FileSmsSink} and {@link HttpSmsSink} deliver
+ * those rows twice.
+ *
+ * For MySQL, stream with {@code useCursorFetch=true} in the source URL so {@code fetchSize} is honoured.
+ */
+public class SmsBackfill {
+    private static final String BOUNDS_QUERY = "SELECT MIN(id), MAX(id) FROM sms_logs";
+    private static final String RANGE_QUERY = "SELECT id, message FROM sms_logs WHERE id >= ? AND id < ? ORDER BY id";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final SmsSink sink;
+    private final Path checkpointFile;
+    private final int readers;
+    private final int writers;
+    private final long rangeSize;
+    private final int fetchSize;
+    private final int batchSize;
+
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    public SmsBackfill(String url, String user, String password, SmsSink sink, Path checkpointFile,
+                       int readers, int writers, long rangeSize, int fetchSize, int batchSize) {
+        if (readers <= 0 || writers <= 0 || rangeSize <= 0 || fetchSize <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Backfill settings must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.sink = sink;
+        this.checkpointFile = checkpointFile;
+        this.readers = readers;
+        this.writers = writers;
+        this.rangeSize = rangeSize;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return number of rows written by this run (ranges skipped via the checkpoint are not counted)
+     */
+    public long run() throws Exception {
+        long[] bounds = bounds();
+        if (bounds == null) {
+            return 0;
+        }
+        TreeMap<Long, Long> done = loadCheckpoint();
+        List<long[]> ranges = new ArrayList<>();
+        for (long start = bounds[0]; start <= bounds[1]; start += rangeSize) {
+            addMissing(start, Math.min(start + rangeSize, bounds[1] + 1), done, ranges);
+        }
+        System.out.println("Backfill: " + ranges.size() + " ranges to copy, " + done.size()
+                + " id intervals already done");
+
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(writers * 4);
+        ExecutorService readerPool = Executors.newFixedThreadPool(readers);
+        ExecutorService writerPool = Executors.newFixedThreadPool(writers);
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> writerTasks = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                writerTasks.add(writerPool.submit(() -> writeLoop(queue)));
+            }
+            List<Future<?>> readerTasks = new ArrayList<>();
+            for (long[] range : ranges) {
+                readerTasks.add(readerPool.submit(() -> readRange(range[0], range[1], queue)));
+            }
+            for (Future<?> task : readerTasks) {
+                task.get();
+            }
+            for (int i = 0; i < writers; i++) {
+                queue.put(Batch.END);
+            }
+            for (Future<?> task : writerTasks) {
+                task.get();
+            }
+        } finally {
+            readerPool.shutdownNow();
+            writerPool.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        System.out.println("Backfill: " + rowsWritten.get() + " rows in " + elapsedMillis + " ms ("
+                + rowsWritten.get() * 1000 / elapsedMillis + " rows/s)");
+        return rowsWritten.get();
+    }
+
+    private long[] bounds() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url, user, password);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(BOUNDS_QUERY)) {
+            if (!rs.next() || rs.getObject(1) == null) {
+                return null;
+            }
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        }
+    }
+
+    private void readRange(long start, long end, BlockingQueue<Batch> queue) {
+        if (failure.get() != null) {
+            return;
+        }
+        long spanStart = start;     // First id not yet covered by a queued batch
+        try (Connection conn = DriverManager.getConnection(url, user, password);
+             PreparedStatement stmt = conn.prepareStatement(RANGE_QUERY,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            stmt.setLong(1, start);
+            stmt.setLong(2, end);
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<SmsRow> rows = new ArrayList<>(batchSize);
+                while (rs.next() && failure.get() == null) {
+                    rows.add(new SmsRow(rs.getLong(1), rs.getString(2)));
+                    if (rows.size() == batchSize) {
+                        long spanEnd = rows.get(rows.size() - 1).getId() + 1;
+                        queue.put(new Batch(spanStart, spanEnd, rows));
+                        spanStart = spanEnd;
+                        rows = new ArrayList<>(batchSize);
+                    }
+                }
+                if (failure.get() != null) {
+                    return;
+                }
+                if (!rows.isEmpty()) {
+                    queue.put(new Batch(spanStart, end, rows));
+                } else if (spanStart < end) {
+                    checkpoint(spanStart, end);     // No rows after the last batch
+                }
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Keeps draining after a failure (discarding batches) so readers blocked on the queue can finish.
+     */
+    private void writeLoop(BlockingQueue<Batch> queue) {
+        while (true) {
+            Batch batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                fail(e);
+                return;
+            }
+            if (batch == Batch.END) {
+                return;
+            }
+            if (failure.get() != null) {
+                continue;
+            }
+            try {
+                sink.write(batch.rows);
+                rowsWritten.addAndGet(batch.rows.size());
+                checkpoint(batch.spanStart, batch.spanEnd);
+            } catch (Exception e) {
+                fail(e);
+            }
+        }
+    }
+
+    private void fail(Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        failure.compareAndSet(null, e);
+    }
+
+    /**
+     * Id intervals already written, as merged start -&gt; end (exclusive). The file is rewritten in
+     * merged form so it stays small across many resumed runs.
+     */
+    private TreeMap<Long, Long> loadCheckpoint() throws IOException {
+        TreeMap<Long, Long> done = new TreeMap<>();
+        if (checkpointFile == null || !Files.exists(checkpointFile)) {
+            return done;
+        }
+        for (String line : Files.readAllLines(checkpointFile, StandardCharsets.UTF_8)) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length == 2) {
+                merge(done, Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            }
+        }
+        StringBuilder merged = new StringBuilder();
+        for (Map.Entry<Long, Long> interval : done.entrySet()) {
+            merged.append(interval.getKey()).append(' ').append(interval.getValue()).append(System.lineSeparator());
+        }
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.writeString(temp, merged, StandardCharsets.UTF_8);
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return done;
+    }
+
+    private static void merge(TreeMap<Long, Long> done, long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        Map.Entry<Long, Long> before = done.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+        }
+        Map.Entry<Long, Long> next;
+        while ((next = done.ceilingEntry(start)) != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            done.remove(next.getKey());
+        }
+        done.put(start, end);
+    }
+
+    /**
+     * Add the parts of [start, end) not covered by done to ranges.
+     */
+    private static void addMissing(long start, long end, TreeMap<Long, Long> done, List<long[]> ranges) {
+        Map.Entry<Long, Long> covering = done.floorEntry(start);
+        if (covering != null && covering.getValue() > start) {
+            start = covering.getValue();
+        }
+        if (start >= end) {
+            return;
+        }
+        for (Map.Entry<Long, Long> interval : done.subMap(start, true, end, false).entrySet()) {
+            if (start < interval.getKey()) {
+                ranges.add(new long[]{start, interval.getKey()});
+            }
+            start = Math.max(start, interval.getValue());
+        }
+        if (start < end) {
+            ranges.add(new long[]{start, end});
+        }
+    }
+
+    private synchronized void checkpoint(long start, long end) {
+        if (checkpointFile == null) {
+            return;
+        }
+        try {
+            Files.writeString(checkpointFile, start + " " + end + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Rows plus the id interval [spanStart, spanEnd) they account for, gaps included.
+     */
+    private static final class Batch {
+        static final Batch END = new Batch(0, 0, List.of());
+
+        final long spanStart;
+        final long spanEnd;
+        final List<SmsRow> rows;
+
+        Batch(long spanStart, long spanEnd, List<SmsRow> rows) {
+            this.spanStart = spanStart;
+            this.spanEnd = spanEnd;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Usage: SmsBackfill &lt;sourceUrl&gt; &lt;user&gt; &lt;password&gt; &lt;sink&gt; [checkpointFile]
+     * where sink is {@code file:<path>}, {@code http://host:port} or a JDBC URL (same credentials).
+     * Tuning: -Dbackfill.readers, -Dbackfill.writers, -Dbackfill.rangeSize, -Dbackfill.fetchSize, -Dbackfill.batchSize
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: SmsBackfill <sourceUrl> <user> <password> <file:path|http://host:port|jdbc:...> [checkpointFile]");
+            System.exit(2);
+        }
+        String target = args[3];
+        SmsSink sink;
+        if (target.startsWith("file:")) {
+            sink = new FileSmsSink(Paths.get(target.substring("file:".length())));
+        } else if (target.startsWith("http://")) {
+            String[] hostPort = target.substring("http://".length()).split(":");
+            sink = new HttpSmsSink(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            sink = new JdbcSmsSink(target, args[1], args[2]);
+        }
+        Path checkpoint = Paths.get(args.length > 4 ? args[4] : "backfill.checkpoint");
+        int cores = Runtime.getRuntime().availableProcessors();
+        try (SmsSink closing = sink) {
+            new SmsBackfill(args[0], args[1], args[2], closing, checkpoint,
+                    Integer.getInteger("backfill.readers", cores),
+                    Integer.getInteger("backfill.writers", cores),
+                    Long.getLong("backfill.rangeSize", 100_000),
+                    Integer.getInteger("backfill.fetchSize", 5_000),
+                    Integer.getInteger("backfill.batchSize", 1_000)).run();
+        }
+    }
+}
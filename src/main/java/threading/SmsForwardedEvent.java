@@ -0,0 +1,25 @@
+package threading;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("threading.SmsForwarded")
+@Label("SMS Forwarded")
+@Category({"SMS Server"})
+@Description("SMS handed to the downstream server and registered for delivery-report correlation")
+@StackTrace(false)
+@Threshold("0 ms")
+class SmsForwardedEvent extends Event {
+    @Label("Message Id")
+    long messageId;
+
+    @Label("Message Size")
+    @DataAmount
+    int messageSize;
+}
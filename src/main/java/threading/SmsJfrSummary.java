@@ -0,0 +1,119 @@
+package threading;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarises the SMS server events in a .jfr file: count, duration percentiles, queue wait,
+ * connect time and rejection reasons.
+ *
+ * Record with e.g. {@code -XX:StartFlightRecording:filename=sms.jfr}; raise the cost threshold of a
+ * single event with {@code +threading.SmsPersisted#threshold=20ms} (JDK 17+ option syntax).
+ *
+ * Usage: SmsJfrSummary &lt;recording.jfr&gt;
+ */
+public class SmsJfrSummary {
+    private static final String PREFIX = "threading.Sms";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SmsJfrSummary <recording.jfr>");
+            System.exit(2);
+        }
+        System.out.print(summarize(Paths.get(args[0])));
+    }
+
+    public static String summarize(Path recording) throws IOException {
+        Map<String, Samples> durations = new TreeMap<>();
+        Samples queueWait = new Samples();
+        Samples connectTime = new Samples();
+        Map<String, Integer> rejections = new HashMap<>();
+        long bodyBytes = 0;
+
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String name = event.getEventType().getName();
+                if (!name.startsWith(PREFIX)) {
+                    continue;
+                }
+                durations.computeIfAbsent(name.substring("threading.".length()), k -> new Samples())
+                        .add(event.getDuration().toNanos());
+                switch (name) {
+                    case "threading.SmsReceived" -> {
+                        queueWait.add(event.getDuration("queueWait").toNanos());
+                        bodyBytes += event.getInt("bodySize");
+                    }
+                    case "threading.SmsPersisted" -> connectTime.add(event.getDuration("connectTime").toNanos());
+                    case "threading.SmsRejected" -> rejections.merge(String.valueOf(event.getString("reason")), 1, Integer::sum);
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-16s %10s %10s %10s %10s %10s%n", "event", "count", "p50", "p99", "max", "total"));
+        for (Map.Entry<String, Samples> entry : durations.entrySet()) {
+            entry.getValue().appendRow(out, entry.getKey());
+        }
+        queueWait.appendRow(out, "queueWait");
+        connectTime.appendRow(out, "connectTime");
+        out.append(String.format("%nbody bytes received: %d%n", bodyBytes));
+        if (!rejections.isEmpty()) {
+            out.append("rejections:").append(System.lineSeparator());
+            rejections.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(e -> out.append(String.format("  %6d  %s%n", e.getValue(), e.getKey())));
+        }
+        return out.toString();
+    }
+
+    private static final class Samples {
+        private long[] values = new long[256];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        void appendRow(StringBuilder out, String label) {
+            if (size == 0) {
+                return;
+            }
+            Arrays.sort(values, 0, size);
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += values[i];
+            }
+            out.append(String.format("%-16s %10d %10s %10s %10s %10s%n", label, size,
+                    format(values[(int) ((size - 1) * 0.50)]),
+                    format(values[(int) ((size - 1) * 0.99)]),
+                    format(values[size - 1]),
+                    format(total)));
+        }
+
+        private static String format(long nanos) {
+            Duration duration = Duration.ofNanos(nanos);
+            if (nanos < 1_000_000) {
+                return nanos / 1000 + "us";
+            }
+            if (nanos < 10_000_000_000L) {
+                return String.format("%.1fms", nanos / 1e6);
+            }
+            return duration.toSeconds() + "s";
+        }
+    }
+}
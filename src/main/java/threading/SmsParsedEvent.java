@@ -0,0 +1,25 @@
+package threading;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("threading.SmsParsed")
+@Label("SMS Parsed")
+@Category({"SMS Server"})
+@Description("Request line, headers and body read from the socket")
+@StackTrace(false)
+@Threshold("0 ms")
+class SmsParsedEvent extends Event {
+    @Label("Header Count")
+    int headerCount;
+
+    @Label("Body Size")
+    @DataAmount
+    int bodySize;
+}
@@ -0,0 +1,30 @@
+package threading;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+@Name("threading.SmsPersisted")
+@Label("SMS Persisted")
+@Category({"SMS Server"})
+@Description("INSERT into sms_logs, including acquiring the JDBC connection")
+@StackTrace(false)
+@Threshold("0 ms")
+class SmsPersistedEvent extends Event {
+    @Label("Message Size")
+    @DataAmount
+    int messageSize;
+
+    @Label("Connect Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectTime;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
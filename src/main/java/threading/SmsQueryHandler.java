@@ -0,0 +1,124 @@
+package threading;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves {@code GET /sms?from=&to=&sender=&cursor=&limit=} from the {@link SmsArchive}.
+ * Timestamps are epoch milliseconds, {@code to} is exclusive. The body is chunked NDJSON:
+ * one object per SMS, followed by a final {@code {"nextCursor": ...}} line.
+ */
+public class SmsQueryHandler {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final SmsArchive archive;
+
+    public SmsQueryHandler(SmsArchive archive) {
+        this.archive = archive;
+    }
+
+    public static boolean accepts(String method, String target) {
+        return "GET".equals(method) && (target.equals("/sms") || target.startsWith("/sms?"));
+    }
+
+    public void handle(String target, OutputStream out) throws IOException {
+        Map<String, String> params = parseQuery(target);
+        long from;
+        long to;
+        int limit;
+        String cursor = params.get("cursor");
+        try {
+            from = Long.parseLong(params.getOrDefault("from", "0"));
+            to = Long.parseLong(params.getOrDefault("to", Long.toString(System.currentTimeMillis() + 1)));
+            limit = Math.min(MAX_LIMIT, Integer.parseInt(params.getOrDefault("limit", Integer.toString(DEFAULT_LIMIT))));
+            if (cursor != null) {
+                checkCursor(cursor);
+            }
+        } catch (NumberFormatException e) {
+            writeError(out, "400 Bad Request", e.getMessage());
+            return;
+        }
+
+        out.write(("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/x-ndjson\r\n"
+                + "Transfer-Encoding: chunked\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        StringBuilder line = new StringBuilder(256);
+        String nextCursor = archive.query(from, to, params.get("sender"), cursor, limit, record -> {
+            line.setLength(0);
+            line.append("{\"timestamp\":").append(record.getTimestamp()).append(",\"sender\":");
+            Json.quote(line, record.getSender()).append(",\"message\":");
+            Json.quote(line, record.getMessage()).append("}\n");
+            writeChunk(out, line);
+        });
+
+        line.setLength(0);
+        line.append("{\"nextCursor\":");
+        if (nextCursor == null) {
+            line.append("null");
+        } else {
+            Json.quote(line, nextCursor);
+        }
+        writeChunk(out, line.append("}\n"));
+        out.write('0');
+        out.write(CRLF);
+        out.write(CRLF);
+        out.flush();
+    }
+
+    /**
+     * A cursor is "bucket.slot" as produced by {@link SmsTimeIndex#scan}. Both parts are parsed
+     * here, before the 200 status line goes out, so a bad one is a 400 rather than a cut-off body.
+     */
+    private static void checkCursor(String cursor) {
+        int dot = cursor.indexOf('.');
+        if (dot < 0) {
+            throw new NumberFormatException("Malformed cursor: " + cursor);
+        }
+        Long.parseLong(cursor.substring(0, dot));
+        if (Integer.parseInt(cursor.substring(dot + 1)) < 0) {
+            throw new NumberFormatException("Malformed cursor: " + cursor);
+        }
+    }
+
+    private static void writeChunk(OutputStream out, CharSequence text) throws IOException {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(Integer.toHexString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.write(bytes);
+        out.write(CRLF);
+    }
+
+    private static void writeError(OutputStream out, String status, String message) throws IOException {
+        byte[] body = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        out.write(("HTTP/1.1 " + status + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    private static Map<String, String> parseQuery(String target) {
+        Map<String, String> params = new HashMap<>();
+        int question = target.indexOf('?');
+        if (question < 0) {
+            return params;
+        }
+        for (String pair : target.substring(question + 1).split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
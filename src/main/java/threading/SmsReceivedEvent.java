@@ -0,0 +1,36 @@
+package threading;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Covers one whole request on the worker thread; its duration is the time spent in handleClient.
+ */
+@Name("threading.SmsReceived")
+@Label("SMS Request Received")
+@Category({"SMS Server"})
+@Description("A client request taken off the executor queue and handled")
+@StackTrace(false)
+@Threshold("0 ms")
+class SmsReceivedEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Target")
+    String target;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+    @Label("Body Size")
+    @DataAmount
+    int bodySize;
+}
@@ -0,0 +1,25 @@
+package threading;
+
+public class SmsRecord {
+    private final long timestamp;
+    private final String sender;
+    private final String message;
+
+    public SmsRecord(long timestamp, String sender, String message) {
+        this.timestamp = timestamp;
+        this.sender = sender;
+        this.message = message;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,23 @@
+package threading;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("threading.SmsRejected")
+@Label("SMS Rejected")
+@Category({"SMS Server"})
+@Description("A request that was refused or failed before the SMS was forwarded")
+@StackTrace(false)
+class SmsRejectedEvent extends Event {
+    @Label("Reason")
+    String reason;
+
+    @Label("Body Size")
+    @DataAmount
+    int bodySize;
+}
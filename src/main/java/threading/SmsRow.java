@@ -0,0 +1,19 @@
+package threading;
+
+public class SmsRow {
+    private final long id;
+    private final String message;
+
+    public SmsRow(long id, String message) {
+        this.id = id;
+        this.message = message;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
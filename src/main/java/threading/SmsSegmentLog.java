@@ -0,0 +1,301 @@
+package threading;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only storage for received SMS, split into numbered segment files.
+ * Every append returns a position (segment id in the high bits, byte offset in the low bits)
+ * that can later be handed back to {@link #read(long)}.
+ *
+ * Record layout: [int length][long timestamp][short senderLength][sender][int messageLength][message]
+ *
+ * On open every segment is scanned and cut back to its last complete record, so a crash in the
+ * middle of an append loses only that record. Whole segments older than the retention cutoff are
+ * removed with {@link #deleteSegmentsBefore(long)}; readers hold a shared lock while they use a
+ * segment's channel, so retention never closes it under them.
+ */
+public class SmsSegmentLog implements Closeable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int OFFSET_BITS = 40;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MIN_BODY_BYTES = Long.BYTES + Short.BYTES + Integer.BYTES;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReadWriteLock channels = new ReentrantReadWriteLock();     // Write-held to close a channel
+    private Segment active;
+    private long activeSize;
+
+    public SmsSegmentLog(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SmsSegmentLog(Path directory, long segmentBytes) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > OFFSET_MASK) {
+            throw new IllegalArgumentException("Segment size out of range: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        for (int id : existingSegmentIds()) {
+            Segment segment = new Segment(id,
+                    FileChannel.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE));
+            recover(segment);
+            segments.put(id, segment);
+        }
+        if (segments.isEmpty()) {
+            roll(0);
+        } else {
+            active = segments.lastEntry().getValue();
+            activeSize = active.channel.size();
+        }
+    }
+
+    public synchronized long append(long timestamp, String sender, String message) throws IOException {
+        byte[] senderBytes = sender.getBytes(StandardCharsets.UTF_8);
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        int length = Long.BYTES + Short.BYTES + senderBytes.length + Integer.BYTES + messageBytes.length;
+        if (senderBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Sender too long: " + senderBytes.length + " bytes");
+        }
+        if (activeSize > 0 && activeSize + Integer.BYTES + length > segmentBytes) {
+            roll(active.id + 1);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + length);
+        buffer.putInt(length)
+                .putLong(timestamp)
+                .putShort((short) senderBytes.length).put(senderBytes)
+                .putInt(messageBytes.length).put(messageBytes)
+                .flip();
+
+        long offset = activeSize;
+        while (buffer.hasRemaining()) {
+            active.channel.write(buffer, offset + buffer.position());
+        }
+        activeSize += Integer.BYTES + length;
+        active.maxTimestamp = Math.max(active.maxTimestamp, timestamp);
+        return ((long) active.id << OFFSET_BITS) | offset;
+    }
+
+    /**
+     * @throws NoSuchFileException if the record's segment has been deleted by retention
+     */
+    public SmsRecord read(long position) throws IOException {
+        int id = (int) (position >>> OFFSET_BITS);
+        long offset = position & OFFSET_MASK;
+        channels.readLock().lock();
+        try {
+            Segment segment = segments.get(id);
+            if (segment == null) {
+                throw new NoSuchFileException(segmentPath(id).toString(), null, "segment expired");
+            }
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            readFully(segment.channel, header, offset);
+            ByteBuffer body = ByteBuffer.allocate(header.flip().getInt());
+            readFully(segment.channel, body, offset + Integer.BYTES);
+            body.flip();
+            return decode(body);
+        } finally {
+            channels.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walk every stored record in append order; used to rebuild in-memory indexes on startup.
+     */
+    public void forEach(RecordVisitor visitor) throws IOException {
+        for (Segment segment : segments.values()) {
+            channels.readLock().lock();
+            try {
+                if (segments.get(segment.id) != segment) {
+                    continue;   // Deleted by retention since the iteration reached it
+                }
+                FileChannel channel = segment.channel;
+                long size = channel.size();
+                long offset = 0;
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+                while (offset + Integer.BYTES <= size) {
+                    header.clear();
+                    readFully(channel, header, offset);
+                    int length = header.flip().getInt();
+                    ByteBuffer body = ByteBuffer.allocate(length);
+                    readFully(channel, body, offset + Integer.BYTES);
+                    body.flip();
+                    visitor.visit(((long) segment.id << OFFSET_BITS) | offset, decode(body));
+                    offset += Integer.BYTES + length;
+                }
+            } finally {
+                channels.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Close and delete the oldest segments whose records are all older than cutoff. The active
+     * segment is never deleted. Cheap when there is nothing to do, so it can run on every append.
+     *
+     * @return the number of segments deleted
+     */
+    public synchronized int deleteSegmentsBefore(long cutoff) throws IOException {
+        int deleted = 0;
+        for (Map.Entry<Integer, Segment> oldest = segments.firstEntry();
+             oldest != null && oldest.getValue() != active && oldest.getValue().maxTimestamp < cutoff;
+             oldest = segments.firstEntry()) {
+            channels.writeLock().lock();
+            try {
+                segments.remove(oldest.getKey());
+                oldest.getValue().channel.close();
+            } finally {
+                channels.writeLock().unlock();
+            }
+            Files.deleteIfExists(segmentPath(oldest.getKey()));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channels.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        } finally {
+            channels.writeLock().unlock();
+        }
+    }
+
+    private void roll(int id) throws IOException {
+        if (active != null) {
+            active.channel.force(false);
+        }
+        active = new Segment(id, FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.put(id, active);
+        activeSize = 0;
+    }
+
+    /**
+     * Check every record's framing, note the newest timestamp, and truncate the segment after
+     * the last record that is complete and consistent. A crash during append leaves either a
+     * short tail or a zero-filled / garbage length, and both fail these checks.
+     */
+    private void recover(Segment segment) throws IOException {
+        FileChannel channel = segment.channel;
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + Short.BYTES);
+        ByteBuffer messageLength = ByteBuffer.allocate(Integer.BYTES);
+        while (offset < size) {
+            long remaining = size - offset;
+            if (remaining < Integer.BYTES + MIN_BODY_BYTES) {
+                break;
+            }
+            header.clear();
+            readFully(channel, header, offset);
+            header.flip();
+            int length = header.getInt();
+            long timestamp = header.getLong();
+            int senderLength = header.getShort();
+            if (length < MIN_BODY_BYTES || Integer.BYTES + (long) length > remaining
+                    || senderLength < 0 || MIN_BODY_BYTES + senderLength > length) {
+                break;
+            }
+            messageLength.clear();
+            readFully(channel, messageLength, offset + header.capacity() + senderLength);
+            if (messageLength.flip().getInt() != length - MIN_BODY_BYTES - senderLength) {
+                break;
+            }
+            segment.maxTimestamp = Math.max(segment.maxTimestamp, timestamp);
+            offset += Integer.BYTES + length;
+        }
+        if (offset < size) {
+            System.out.println("Segment " + segment.id + ": dropping " + (size - offset)
+                    + " bytes of incomplete record at offset " + offset);
+            channel.truncate(offset);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Ids of the segment files on disk, ascending. Retention deletes from the front, so the ids
+     * are contiguous but need not start at 0.
+     */
+    private List<Integer> existingSegmentIds() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String id = name.substring(0, name.length() - SEGMENT_SUFFIX.length());
+                if (id.length() == 8 && id.chars().allMatch(Character::isDigit)) {
+                    ids.add(Integer.parseInt(id));
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%08d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static SmsRecord decode(ByteBuffer body) {
+        long timestamp = body.getLong();
+        byte[] sender = new byte[body.getShort()];
+        body.get(sender);
+        byte[] message = new byte[body.getInt()];
+        body.get(message);
+        return new SmsRecord(timestamp,
+                new String(sender, StandardCharsets.UTF_8),
+                new String(message, StandardCharsets.UTF_8));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Truncated record at offset " + offset);
+            }
+        }
+    }
+
+    public interface RecordVisitor {
+        void visit(long position, SmsRecord record) throws IOException;
+    }
+
+    private static final class Segment {
+        final int id;
+        final FileChannel channel;
+        volatile long maxTimestamp = Long.MIN_VALUE;    // Newest record; retention deletes by this
+
+        Segment(int id, FileChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package threading;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for replayed SMS rows. {@link #write(List)} is called concurrently from several
+ * writer threads, each time with one batch in primary-key order.
+ */
+public interface SmsSink extends AutoCloseable {
+    void write(List<SmsRow> batch) throws Exception;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,189 @@
+package threading;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process time index over the {@link SmsSegmentLog}.
+ *
+ * Entries are grouped into fixed-width time buckets kept in a skip list, so a range query only
+ * touches the buckets that overlap it. Each entry remembers where its record lives in the log;
+ * buckets inside the hot window additionally keep the decoded record so recent reads never hit disk.
+ */
+public class SmsTimeIndex {
+    public static final long DEFAULT_BUCKET_MILLIS = 60_000;
+    public static final long DEFAULT_HOT_WINDOW_MILLIS = 15 * 60_000;
+    public static final long DEFAULT_RETENTION_MILLIS = 7 * 24 * 60 * 60_000L;
+
+    private final long bucketMillis;
+    private final long hotWindowMillis;
+    private final long retentionMillis;
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    private volatile long coldBoundary = Long.MIN_VALUE;
+
+    public SmsTimeIndex() {
+        this(DEFAULT_BUCKET_MILLIS, DEFAULT_HOT_WINDOW_MILLIS, DEFAULT_RETENTION_MILLIS);
+    }
+
+    public SmsTimeIndex(long bucketMillis, long hotWindowMillis, long retentionMillis) {
+        if (bucketMillis <= 0 || hotWindowMillis < 0 || retentionMillis < hotWindowMillis) {
+            throw new IllegalArgumentException("Invalid index windows");
+        }
+        this.bucketMillis = bucketMillis;
+        this.hotWindowMillis = hotWindowMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    public void add(long position, SmsRecord record) {
+        long bucketStart = bucketStart(record.getTimestamp());
+        Bucket bucket = buckets.get(bucketStart);
+        if (bucket == null) {
+            Bucket created = new Bucket();
+            bucket = buckets.putIfAbsent(bucketStart, created);
+            if (bucket == null) {
+                bucket = created;
+                expire(record.getTimestamp());
+            }
+        }
+        boolean hot = record.getTimestamp() >= coldBoundary;
+        bucket.add(new Entry(record.getTimestamp(), record.getSender(), position, hot ? record : null));
+    }
+
+    /**
+     * Stream entries with {@code from <= timestamp < to}, optionally restricted to one sender.
+     * Buckets are append-only, so a (bucket, slot) pair is a stable pagination cursor.
+     *
+     * @param cursor null for the first page, otherwise the value returned by the previous page
+     * @return the cursor for the next page if {@code limit} was reached, otherwise null
+     */
+    public String scan(long from, long to, String sender, String cursor, int limit,
+                       SmsSegmentLog log, RecordSink sink) throws IOException {
+        if (limit <= 0 || from >= to) {
+            return null;
+        }
+        long startBucket = bucketStart(from);
+        int startSlot = 0;
+        if (cursor != null) {
+            int dot = cursor.indexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Malformed cursor: " + cursor);
+            }
+            startBucket = Math.max(startBucket, Long.parseLong(cursor.substring(0, dot)));
+            startSlot = Integer.parseInt(cursor.substring(dot + 1));
+        }
+        long endBucket = bucketStart(to - 1);
+        if (startBucket > endBucket) {
+            return null;
+        }
+
+        int emitted = 0;
+        for (Map.Entry<Long, Bucket> bucketEntry : buckets.subMap(startBucket, true, endBucket, true).entrySet()) {
+            Bucket bucket = bucketEntry.getValue();
+            int size = bucket.size;
+            Entry[] entries = bucket.entries;
+            int slot = bucketEntry.getKey() == startBucket ? startSlot : 0;
+            for (; slot < size; slot++) {
+                Entry entry = entries[slot];
+                if (entry.timestamp < from || entry.timestamp >= to) {
+                    continue;
+                }
+                if (sender != null && !sender.equals(entry.sender)) {
+                    continue;
+                }
+                if (emitted == limit) {
+                    return bucketEntry.getKey() + "." + slot;
+                }
+                SmsRecord record = entry.hot;
+                sink.accept(record != null ? record : log.read(entry.position));
+                emitted++;
+            }
+        }
+        return null;
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Oldest timestamp still retained when the newest record is at now. Everything older has had
+     * its bucket dropped, so log segments holding only older records can be deleted.
+     */
+    public long retentionCutoff(long now) {
+        return bucketStart(now - retentionMillis);
+    }
+
+    private long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+    }
+
+    /**
+     * Runs whenever a new bucket opens: drops cached records that fell out of the hot window
+     * and whole buckets that fell out of retention.
+     */
+    private void expire(long now) {
+        long boundary = bucketStart(now - hotWindowMillis);
+        if (boundary <= coldBoundary) {
+            return;
+        }
+        coldBoundary = boundary;
+        buckets.headMap(retentionCutoff(now)).clear();
+        for (Map.Entry<Long, Bucket> cold : buckets.headMap(boundary).entrySet()) {
+            cold.getValue().evictHot();
+        }
+    }
+
+    public interface RecordSink {
+        void accept(SmsRecord record) throws IOException;
+    }
+
+    private static final class Entry {
+        final long timestamp;
+        final String sender;
+        final long position;
+        volatile SmsRecord hot;
+
+        Entry(long timestamp, String sender, long position, SmsRecord hot) {
+            this.timestamp = timestamp;
+            this.sender = Objects.requireNonNull(sender);
+            this.position = position;
+            this.hot = hot;
+        }
+    }
+
+    /**
+     * Append-only entry list. Readers take {@code size} before {@code entries}, so the array they
+     * see is always large enough and fully published up to that size without locking.
+     */
+    private static final class Bucket {
+        volatile Entry[] entries = new Entry[16];
+        volatile int size;
+        private boolean evicted;
+
+        synchronized void add(Entry entry) {
+            Entry[] current = entries;
+            if (size == current.length) {
+                Entry[] grown = new Entry[current.length * 2];
+                System.arraycopy(current, 0, grown, 0, size);
+                entries = current = grown;
+            }
+            if (evicted) {
+                entry.hot = null;
+            }
+            current[size] = entry;
+            size = size + 1;
+        }
+
+        synchronized void evictHot() {
+            if (evicted) {
+                return;
+            }
+            evicted = true;
+            for (int i = 0; i < size; i++) {
+                entries[i].hot = null;
+            }
+        }
+    }
+}
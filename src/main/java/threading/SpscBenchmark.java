@@ -0,0 +1,110 @@
+package threading;
+
+/**
+ * One producer, one consumer: per-item hand-off through {@link BlockingQueueBuffer} against
+ * {@link SpscIntQueue} used per item and in batches.
+ *
+ * Usage: SpscBenchmark [items] [batchSize]
+ */
+public class SpscBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int batch = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "-- warm-up --" : "-- measured --");
+
+            BlockingQueueBuffer buffer = new BlockingQueueBuffer();
+            report("BlockingQueueBuffer", items, run(items,
+                    () -> {
+                        for (int i = 0; i < items; i++) {
+                            buffer.addItem(i);
+                        }
+                    },
+                    () -> {
+                        long sum = 0;
+                        for (int i = 0; i < items; i++) {
+                            sum += buffer.getItem();
+                        }
+                        return sum;
+                    }));
+
+            SpscIntQueue single = new SpscIntQueue(1024, WaitStrategy.blocking());
+            report("SpscIntQueue put/take", items, run(items,
+                    () -> {
+                        for (int i = 0; i < items; i++) {
+                            single.put(i);
+                        }
+                    },
+                    () -> {
+                        long sum = 0;
+                        for (int i = 0; i < items; i++) {
+                            sum += single.take();
+                        }
+                        return sum;
+                    }));
+
+            SpscIntQueue batched = new SpscIntQueue(1024, WaitStrategy.blocking());
+            report("SpscIntQueue batch " + batch, items, run(items,
+                    () -> {
+                        int[] chunk = new int[batch];
+                        for (int i = 0; i < items; i += batch) {
+                            int length = Math.min(batch, items - i);
+                            for (int j = 0; j < length; j++) {
+                                chunk[j] = i + j;
+                            }
+                            batched.putBatch(chunk, 0, length);
+                        }
+                    },
+                    () -> {
+                        long[] sum = new long[1];
+                        int received = 0;
+                        while (received < items) {
+                            received += batched.awaitDrainTo(value -> sum[0] += value, batch);
+                        }
+                        return sum[0];
+                    }));
+        }
+    }
+
+    private static long run(int items, Producer producer, Consumer consumer) throws Exception {
+        long[] result = new long[1];
+        Thread producerThread = new Thread(() -> {
+            try {
+                producer.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread consumerThread = new Thread(() -> {
+            try {
+                result[0] = consumer.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        long begin = System.nanoTime();
+        producerThread.start();
+        consumerThread.start();
+        producerThread.join();
+        consumerThread.join();
+        long elapsed = System.nanoTime() - begin;
+        if (result[0] != (long) items * (items - 1) / 2) {
+            throw new IllegalStateException("Checksum mismatch: " + result[0]);
+        }
+        return elapsed;
+    }
+
+    private static void report(String name, int items, long nanos) {
+        System.out.printf("%-28s %7.1f M items/s%n", name, items / (nanos / 1e9) / 1e6);
+    }
+
+    private interface Producer {
+        void run() throws InterruptedException;
+    }
+
+    private interface Consumer {
+        long run() throws InterruptedException;
+    }
+}
@@ -0,0 +1,183 @@
+package threading;
+
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Bounded int queue for exactly one producer thread and one consumer thread.
+ *
+ * With a single writer per cursor no CAS is needed: each side updates its own cursor with a
+ * release store (lazySet) and only reads the other side's cursor when its cached copy says the
+ * queue is full or empty. The batch methods copy with {@link System#arraycopy} and publish a whole
+ * batch with one store, so a blocked consumer is woken once per batch rather than per element.
+ */
+public class SpscIntQueue extends PaddedCursors {
+    private final int[] buffer;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final BooleanSupplier spaceAvailable = this::hasSpace;
+    private final BooleanSupplier itemsAvailable = this::hasItems;
+
+    // headCache (producer's copy of head) and tailCache (consumer's copy of tail) live in
+    // PaddedCursors next to the owning side's cursor; each is refreshed only when exhausted.
+
+    public SpscIntQueue(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SpscIntQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1 << 1 | 1);
+        this.buffer = new int[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public int size() {
+        return (int) (tail() - head());
+    }
+
+    public boolean offer(int value) {
+        long tail = (long) TAIL.getOpaque(this);
+        if (tail - headCache >= buffer.length) {
+            headCache = head();
+            if (tail - headCache >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) tail & mask] = value;
+        TAIL.setRelease(this, tail + 1);
+        waitStrategy.signal();
+        return true;
+    }
+
+    /**
+     * Copy as many of {@code values[offset, offset + length)} as fit.
+     *
+     * @return number of values enqueued
+     * @throws IndexOutOfBoundsException if the range is not within {@code values}
+     */
+    public int offerBatch(int[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, values.length);
+        long tail = (long) TAIL.getOpaque(this);
+        long free = buffer.length - (tail - headCache);
+        if (free < length) {
+            headCache = head();
+            free = buffer.length - (tail - headCache);
+        }
+        int count = (int) Math.min(free, length);
+        if (count == 0) {
+            return 0;
+        }
+        int start = (int) tail & mask;
+        int first = Math.min(count, buffer.length - start);
+        System.arraycopy(values, offset, buffer, start, first);
+        System.arraycopy(values, offset + first, buffer, 0, count - first);
+        TAIL.setRelease(this, tail + count);
+        waitStrategy.signal();
+        return count;
+    }
+
+    public void put(int value) throws InterruptedException {
+        while (!offer(value)) {
+            waitStrategy.await(spaceAvailable);
+        }
+    }
+
+    /**
+     * Block until every value has been enqueued, publishing in as few batches as the capacity allows.
+     */
+    public void putBatch(int[] values, int offset, int length) throws InterruptedException {
+        while (length > 0) {
+            int written = offerBatch(values, offset, length);
+            offset += written;
+            length -= written;
+            if (length > 0 && written == 0) {
+                waitStrategy.await(spaceAvailable);
+            }
+        }
+    }
+
+    public int poll(int ifEmpty) {
+        long head = (long) HEAD.getOpaque(this);
+        if (head >= tailCache) {
+            tailCache = tail();
+            if (head >= tailCache) {
+                return ifEmpty;
+            }
+        }
+        int value = buffer[(int) head & mask];
+        HEAD.setRelease(this, head + 1);
+        waitStrategy.signal();
+        return value;
+    }
+
+    public int take() throws InterruptedException {
+        while (true) {
+            long head = (long) HEAD.getOpaque(this);
+            if (head < tailCache || head < (tailCache = tail())) {
+                int value = buffer[(int) head & mask];
+                HEAD.setRelease(this, head + 1);
+                waitStrategy.signal();
+                return value;
+            }
+            waitStrategy.await(itemsAvailable);
+        }
+    }
+
+    /**
+     * Hand up to {@code max} queued values to {@code sink} without waiting.
+     *
+     * @return number of values drained
+     * @throws IllegalArgumentException if {@code max} is not positive
+     */
+    public int drainTo(IntConsumer sink, int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive: " + max);
+        }
+        long head = (long) HEAD.getOpaque(this);
+        if (tailCache - head < max) {
+            tailCache = tail();
+        }
+        int count = (int) Math.min(tailCache - head, max);
+        for (int i = 0; i < count; i++) {
+            sink.accept(buffer[(int) (head + i) & mask]);
+        }
+        if (count > 0) {
+            HEAD.setRelease(this, head + count);
+            waitStrategy.signal();
+        }
+        return count;
+    }
+
+    /**
+     * Wait until at least one value is available, then drain up to {@code max}.
+     *
+     * @throws IllegalArgumentException if {@code max} is not positive
+     */
+    public int awaitDrainTo(IntConsumer sink, int max) throws InterruptedException {
+        int drained;
+        while ((drained = drainTo(sink, max)) == 0) {
+            waitStrategy.await(itemsAvailable);
+        }
+        return drained;
+    }
+
+    private boolean hasSpace() {
+        return tail() - head() < buffer.length;
+    }
+
+    private boolean hasItems() {
+        return head() < tail();
+    }
+}
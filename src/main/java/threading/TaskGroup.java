@@ -0,0 +1,429 @@
+package threading;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A batch of tasks that is forked, joined and cancelled as one unit, one virtual thread per task.
+ *
+ * Same shape as the JDK's (still preview) StructuredTaskScope: the thread that creates the group
+ * forks subtasks, calls {@link #join()} once, then reads the results; {@link #close()} cancels
+ * whatever is still running and waits for it, so no task outlives the block that started it.
+ *
+ * <pre>
+ * try (TaskGroup&lt;BigInteger&gt; group = TaskGroup.failFast(Duration.ofSeconds(5))) {
+ *     for (int n : inputs) group.fork(() -&gt; service.fib(n));
+ *     List&lt;BigInteger&gt; values = group.join().results();
+ * }
+ * </pre>
+ *
+ * With {@link Policy#FAIL_FAST} the first failure cancels the siblings and {@link #join()} throws it;
+ * with {@link Policy#COLLECT_ALL} every task runs to completion and the failures are read afterwards.
+ * In both cases the deadline bounds the whole batch. Cancellation interrupts the task threads, so a
+ * task that never checks for interrupts still runs to its end before {@link #close()} returns.
+ */
+public class TaskGroup<T> implements AutoCloseable {
+
+    public enum Policy {
+        /** Cancel the remaining tasks on the first failure and rethrow it from join. */
+        FAIL_FAST,
+        /** Let every task finish; failures are reported per subtask and in the stats. */
+        COLLECT_ALL
+    }
+
+    public enum State {
+        RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private final Policy policy;
+    private final long deadlineNanos;
+    private final ThreadFactory threadFactory;
+    private final Thread owner = Thread.currentThread();
+
+    private final List<Subtask<T>> subtasks = new ArrayList<>();
+    private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int unfinished;
+    private Throwable firstFailure;
+    private volatile boolean cancelled;
+    private boolean joined;
+    private boolean closed;
+
+    private final LatencyHistogram taskTime = new LatencyHistogram();
+    private final LongAdder busyNanos = new LongAdder();
+    private long startedAt;
+    private long joinedAt;
+
+    public TaskGroup(Policy policy, Duration deadline) {
+        this(policy, deadline, Thread.ofVirtual().name("task-group-", 0).factory());
+    }
+
+    public TaskGroup(Policy policy, Duration deadline, ThreadFactory threadFactory) {
+        if (deadline.isNegative()) {
+            throw new IllegalArgumentException("Deadline must not be negative");
+        }
+        this.policy = policy;
+        this.deadlineNanos = System.nanoTime() + Math.min(deadline.toNanos(), Long.MAX_VALUE / 2);
+        this.threadFactory = threadFactory;
+    }
+
+    public static <T> TaskGroup<T> failFast(Duration deadline) {
+        return new TaskGroup<>(Policy.FAIL_FAST, deadline);
+    }
+
+    public static <T> TaskGroup<T> collectAll(Duration deadline) {
+        return new TaskGroup<>(Policy.COLLECT_ALL, deadline);
+    }
+
+    /**
+     * Start {@code task} on its own thread. After the group has been cancelled the subtask is
+     * returned already {@link State#CANCELLED} and never runs.
+     *
+     * @throws RejectedExecutionException if the thread factory returned no thread; the task is not
+     *         part of the group, as when starting the thread fails
+     */
+    public Subtask<T> fork(Callable<? extends T> task) {
+        checkOwner();
+        if (joined || closed) {
+            throw new IllegalStateException("Cannot fork after join or close");
+        }
+        Subtask<T> subtask = new Subtask<>(this, task);
+        if (startedAt == 0) {
+            startedAt = System.nanoTime();
+        }
+        if (cancelled) {
+            subtask.state = State.CANCELLED;
+            subtasks.add(subtask);
+            return subtask;
+        }
+        Thread thread = threadFactory.newThread(subtask);
+        if (thread == null) {
+            throw new RejectedExecutionException("Thread factory returned no thread");
+        }
+        subtask.thread = thread;
+        running.add(thread);
+        try {
+            thread.start();
+        } catch (Throwable e) {     // e.g. OutOfMemoryError: unable to create native thread
+            running.remove(thread);
+            throw e;
+        }
+        // Counted only once the thread exists, or close() would wait for it forever. A quick task
+        // may already have counted itself down; only the owner waits on unfinished, and it is here.
+        subtasks.add(subtask);
+        lock.lock();
+        try {
+            unfinished++;
+        } finally {
+            lock.unlock();
+        }
+        return subtask;
+    }
+
+    /**
+     * Wait for every subtask (or, with {@link Policy#FAIL_FAST}, for the first failure) until the
+     * deadline. On failure or timeout the remaining subtasks are cancelled before this throws.
+     *
+     * @throws ExecutionException the first failure, under {@link Policy#FAIL_FAST}
+     * @throws TimeoutException if the deadline passed with subtasks still running
+     */
+    public TaskGroup<T> join() throws InterruptedException, ExecutionException, TimeoutException {
+        checkOwner();
+        if (joined || closed) {
+            throw new IllegalStateException("Already joined");
+        }
+        boolean timedOut = false;
+        Throwable failure;
+        lock.lock();
+        try {
+            while (unfinished > 0 && !(policy == Policy.FAIL_FAST && firstFailure != null)) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    timedOut = true;
+                    break;
+                }
+                changed.awaitNanos(remaining);
+            }
+            failure = policy == Policy.FAIL_FAST ? firstFailure : null;
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+        joined = true;
+        joinedAt = System.nanoTime();
+        if (failure != null) {
+            cancel();
+            throw new ExecutionException(failure);
+        }
+        if (timedOut) {
+            cancel();
+            throw new TimeoutException("Deadline passed with " + running.size() + " of " + subtasks.size()
+                    + " tasks still running");
+        }
+        return this;
+    }
+
+    /**
+     * Interrupt every running subtask; their results are discarded.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Thread thread : running) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Results of the subtasks that succeeded, in fork order.
+     */
+    public List<T> results() {
+        checkJoined();
+        List<T> results = new ArrayList<>(subtasks.size());
+        for (Subtask<T> subtask : subtasks) {
+            if (subtask.state == State.SUCCEEDED) {
+                results.add(subtask.result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Exceptions of the subtasks that failed, in fork order.
+     */
+    public List<Throwable> failures() {
+        checkJoined();
+        List<Throwable> failures = new ArrayList<>();
+        for (Subtask<T> subtask : subtasks) {
+            if (subtask.state == State.FAILED) {
+                failures.add(subtask.exception);
+            }
+        }
+        return failures;
+    }
+
+    public List<Subtask<T>> subtasks() {
+        return List.copyOf(subtasks);
+    }
+
+    public Stats stats() {
+        checkJoined();
+        int succeeded = 0;
+        int failed = 0;
+        int cancelledCount = 0;
+        for (Subtask<T> subtask : subtasks) {
+            switch (subtask.state) {
+                case SUCCEEDED -> succeeded++;
+                case FAILED -> failed++;
+                case CANCELLED -> cancelledCount++;
+                default -> {
+                }
+            }
+        }
+        long wallNanos = startedAt == 0 ? 0 : joinedAt - startedAt;
+        return new Stats(subtasks.size(), succeeded, failed, cancelledCount, wallNanos, busyNanos.sum(), taskTime);
+    }
+
+    /**
+     * Cancel anything still running and wait until every subtask thread has finished.
+     */
+    @Override
+    public void close() {
+        checkOwner();
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!joined) {
+            joinedAt = System.nanoTime();
+            joined = true;
+        }
+        lock.lock();
+        try {
+            if (unfinished > 0) {
+                cancel();
+            }
+            while (unfinished > 0) {
+                changed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finished(Subtask<T> subtask, long runNanos) {
+        running.remove(subtask.thread);
+        taskTime.record(runNanos);
+        busyNanos.add(runNanos);
+        lock.lock();
+        try {
+            if (subtask.state == State.FAILED && firstFailure == null) {
+                firstFailure = subtask.exception;
+                if (policy == Policy.FAIL_FAST) {
+                    cancel();
+                }
+            }
+            unfinished--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("Only the thread that created the group may fork, join or close it");
+        }
+    }
+
+    private void checkJoined() {
+        checkOwner();
+        if (!joined) {
+            throw new IllegalStateException("Call join() first");
+        }
+    }
+
+    public static final class Subtask<T> implements Runnable {
+        private final TaskGroup<T> group;
+        private final Callable<? extends T> task;
+        private Thread thread;
+        private volatile State state = State.RUNNING;
+        private T result;
+        private Throwable exception;
+        private volatile long runNanos;
+
+        private Subtask(TaskGroup<T> group, Callable<? extends T> task) {
+            this.group = group;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (Thread.currentThread() != thread) {
+                throw new IllegalStateException("Subtasks are run by their group");
+            }
+            long started = System.nanoTime();
+            try {
+                if (group.cancelled) {
+                    state = State.CANCELLED;
+                } else {
+                    result = task.call();
+                    state = State.SUCCEEDED;
+                }
+            } catch (Throwable e) {
+                exception = e;
+                state = group.cancelled ? State.CANCELLED : State.FAILED;
+            } finally {
+                runNanos = System.nanoTime() - started;
+                group.finished(this, runNanos);
+            }
+        }
+
+        public State state() {
+            return state;
+        }
+
+        /**
+         * @throws IllegalStateException unless the subtask succeeded
+         */
+        public T get() {
+            if (state != State.SUCCEEDED) {
+                throw new IllegalStateException("Subtask " + state);
+            }
+            return result;
+        }
+
+        /**
+         * @throws IllegalStateException unless the subtask failed
+         */
+        public Throwable exception() {
+            if (state != State.FAILED) {
+                throw new IllegalStateException("Subtask " + state);
+            }
+            return exception;
+        }
+
+        public long runNanos() {
+            return runNanos;
+        }
+    }
+
+    public static final class Stats {
+        private final int forked;
+        private final int succeeded;
+        private final int failed;
+        private final int cancelled;
+        private final long wallNanos;
+        private final long busyNanos;
+        private final LatencyHistogram taskTime;
+
+        Stats(int forked, int succeeded, int failed, int cancelled, long wallNanos, long busyNanos,
+              LatencyHistogram taskTime) {
+            this.forked = forked;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.cancelled = cancelled;
+            this.wallNanos = wallNanos;
+            this.busyNanos = busyNanos;
+            this.taskTime = taskTime;
+        }
+
+        public int getForked() {
+            return forked;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * First fork until join returned.
+         */
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * Sum of all subtask run times; busy / wall is the parallelism actually achieved.
+         */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        public LatencyHistogram getTaskTime() {
+            return taskTime;
+        }
+
+        @Override
+        public String toString() {
+            return "forked=" + forked
+                    + " succeeded=" + succeeded
+                    + " failed=" + failed
+                    + " cancelled=" + cancelled
+                    + " wall=" + wallNanos / 1_000_000 + "ms"
+                    + " busy=" + busyNanos / 1_000_000 + "ms"
+                    + " taskTime[" + taskTime + "]";
+        }
+    }
+}
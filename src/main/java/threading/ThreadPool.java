@@ -1,20 +1,29 @@
 package threading;
 
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public class ThreadPool {
-    ThreadPoolExecutor executor = new ThreadPoolExecutor(4,
-            4,
-            10,
-            TimeUnit.MINUTES,
-            new ArrayBlockingQueue<>(3),
-            new ThreadPoolExecutor.DiscardPolicy() );
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    AdaptiveExecutor executor = new AdaptiveExecutor(
+            new AimdLimit(1, CORES, CORES * 4),
+            new ArrayBlockingQueue<>(64),
+            AdaptiveExecutor.Overflow.SPILL,
+            0,
+            TimeUnit.MILLISECONDS);
+
+    {
+        executor.setThreadFactory(Thread.ofPlatform().name("thread-pool-", 0).factory());
+    }
 
     public void processTask(int taskId){
         executor.submit(()->{
             System.out.println("Processing task:"+ taskId+"Completing by");
         });
     }
+
+    public String stats() {
+        return executor.stats();
+    }
 }
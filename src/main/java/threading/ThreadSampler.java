@@ -0,0 +1,357 @@
+package threading;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sampling profiler for named thread pools, built on {@link ThreadMXBean}, that can be started and
+ * stopped in a running server.
+ *
+ * Every {@code intervalMillis} it takes the stacks (up to {@code maxDepth} frames) of the threads
+ * whose names start with one of the configured prefixes and records:
+ * <ul>
+ *   <li>folded stacks ({@code pool;frame;...;frame count}) for flamegraph.pl or speedscope; threads
+ *       that are not running end in a {@code [BLOCKED]}, {@code [WAITING]} or {@code [TIMED_WAITING]}
+ *       frame, and runnable threads in a native frame (usually socket or file I/O) in {@code [NATIVE]};</li>
+ *   <li>per pool: thread states, CPU time, and contention counts and blocked/waited time from the JVM's
+ *       thread contention monitoring;</li>
+ *   <li>per monitor: how often a pool thread was seen blocked on it, and the implied blocked time.</li>
+ * </ul>
+ * Monitors are keyed by {@code class@identityHash}, so distinct locks of one class stay apart, and new
+ * pool threads are picked up every {@value #REFRESH_TICKS} samples. Only pool threads are dumped, the
+ * number of distinct stacks is capped, and the sampler reports its own cost, so overhead stays bounded
+ * and visible.
+ */
+public class ThreadSampler {
+    private static final int REFRESH_TICKS = 100;
+
+    private final ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+    private final Map<String, String> pools;
+    private final long intervalMillis;
+    private final int maxDepth;
+    private final int maxStacks;
+
+    private ScheduledExecutorService timer;
+    private boolean enabledContention;  // Whether start() turned these JVM-wide settings on,
+    private boolean enabledCpuTime;     // so that stop() turns them back off
+    private long ticks;
+    private long sampleNanos;
+    private long startedAt;
+    private long activeNanos;
+
+    private final Map<Long, String> poolOfThread = new HashMap<>();
+    private final Map<Long, ThreadTotals> lastTotals = new HashMap<>();
+    private final Map<String, PoolStats> poolStats = new TreeMap<>();
+    private final Map<String, long[]> stacks = new HashMap<>();
+    private final Map<String, long[]> monitors = new HashMap<>();
+    private long droppedStacks;
+
+    /**
+     * @param pools thread-name prefix to pool label, e.g. {@code "sms-worker-" -> "sms-worker"}
+     */
+    public ThreadSampler(Map<String, String> pools, long intervalMillis, int maxDepth, int maxStacks) {
+        if (intervalMillis <= 0 || maxDepth <= 0 || maxStacks <= 0) {
+            throw new IllegalArgumentException("Sampler settings must be positive");
+        }
+        this.pools = new LinkedHashMap<>(pools);
+        this.intervalMillis = intervalMillis;
+        this.maxDepth = maxDepth;
+        this.maxStacks = maxStacks;
+    }
+
+    /**
+     * Interval, depth and stack cap from {@code sms.profile.intervalMillis} (default 10),
+     * {@code sms.profile.maxDepth} (64) and {@code sms.profile.maxStacks} (20000).
+     */
+    public static ThreadSampler fromSystemProperties(Map<String, String> pools) {
+        return new ThreadSampler(pools,
+                Long.getLong("sms.profile.intervalMillis", 10),
+                Integer.getInteger("sms.profile.maxDepth", 64),
+                Integer.getInteger("sms.profile.maxStacks", 20_000));
+    }
+
+    public synchronized boolean start() {
+        if (timer != null) {
+            return false;
+        }
+        if (mx.isThreadContentionMonitoringSupported() && !mx.isThreadContentionMonitoringEnabled()) {
+            mx.setThreadContentionMonitoringEnabled(true);
+            enabledContention = true;
+        }
+        if (mx.isThreadCpuTimeSupported() && !mx.isThreadCpuTimeEnabled()) {
+            mx.setThreadCpuTimeEnabled(true);
+            enabledCpuTime = true;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "thread-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        startedAt = System.nanoTime();
+        timer.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    public synchronized boolean stop() {
+        if (timer == null) {
+            return false;
+        }
+        timer.shutdownNow();
+        timer = null;
+        activeNanos += System.nanoTime() - startedAt;
+        // Contention monitoring costs every monitor acquisition in the process, so leave it as found.
+        // Re-enabling it restarts the blocked and waited times, hence the dropped per-thread baselines.
+        if (enabledContention) {
+            mx.setThreadContentionMonitoringEnabled(false);
+            enabledContention = false;
+        }
+        if (enabledCpuTime) {
+            mx.setThreadCpuTimeEnabled(false);
+            enabledCpuTime = false;
+        }
+        lastTotals.clear();
+        return true;
+    }
+
+    public synchronized boolean isRunning() {
+        return timer != null;
+    }
+
+    public synchronized void reset() {
+        ticks = 0;
+        sampleNanos = 0;
+        activeNanos = 0;
+        startedAt = System.nanoTime();
+        poolStats.clear();
+        stacks.clear();
+        monitors.clear();
+        droppedStacks = 0;
+    }
+
+    /**
+     * Take one sample of every pool thread. Called by the timer; callable directly for tests.
+     */
+    synchronized void sample() {
+        long begin = System.nanoTime();
+        if (ticks++ % REFRESH_TICKS == 0) {
+            refreshThreads();
+        }
+        long[] ids = new long[poolOfThread.size()];
+        int n = 0;
+        for (Map.Entry<Long, String> entry : poolOfThread.entrySet()) {
+            if (entry.getValue() != null) {
+                ids[n++] = entry.getKey();
+            }
+        }
+        ThreadInfo[] infos = mx.getThreadInfo(Arrays.copyOf(ids, n), maxDepth);
+        StringBuilder folded = new StringBuilder(256);
+        for (int i = 0; i < n; i++) {
+            ThreadInfo info = infos[i];
+            if (info == null) {
+                poolOfThread.remove(ids[i]);
+                lastTotals.remove(ids[i]);
+                continue;
+            }
+            String pool = poolOfThread.get(ids[i]);
+            PoolStats stats = poolStats.computeIfAbsent(pool, k -> new PoolStats());
+            stats.record(info, mx.isThreadCpuTimeSupported() ? mx.getThreadCpuTime(ids[i]) : -1,
+                    lastTotals.computeIfAbsent(ids[i], k -> new ThreadTotals()));
+
+            folded.setLength(0);
+            folded.append(pool);
+            StackTraceElement[] frames = info.getStackTrace();
+            for (int f = frames.length - 1; f >= 0; f--) {
+                folded.append(';').append(frames[f].getClassName()).append('.').append(frames[f].getMethodName());
+            }
+            String marker = marker(info);
+            if (marker != null) {
+                folded.append(';').append(marker);
+            }
+            count(folded.toString());
+
+            if (info.getThreadState() == Thread.State.BLOCKED && info.getLockName() != null) {
+                long[] monitor = monitors.computeIfAbsent(info.getLockName(), k -> new long[1]);
+                monitor[0]++;
+            }
+        }
+        sampleNanos += System.nanoTime() - begin;
+    }
+
+    public synchronized String foldedStacks() {
+        StringBuilder out = new StringBuilder();
+        stacks.entrySet().stream()
+                .sorted(Map.Entry.<String, long[]>comparingByValue((a, b) -> Long.compare(b[0], a[0])))
+                .forEach(e -> out.append(e.getKey()).append(' ').append(e.getValue()[0]).append('\n'));
+        return out.toString();
+    }
+
+    public void writeFolded(Path file) throws IOException {
+        Files.writeString(file, foldedStacks(), StandardCharsets.UTF_8);
+    }
+
+    public synchronized String report() {
+        long active = activeNanos + (timer != null ? System.nanoTime() - startedAt : 0);
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("samples=%d interval=%dms overhead=%.2f%% stacks=%d dropped=%d%n",
+                ticks, intervalMillis, active == 0 ? 0.0 : 100.0 * sampleNanos / active, stacks.size(), droppedStacks));
+        out.append(String.format("%n%-16s %8s %9s %8s %8s %8s %8s %10s %9s %10s %9s %10s%n",
+                "pool", "samples", "runnable", "native", "blocked", "waiting", "timed", "cpu", "blocks", "blockedMs",
+                "waits", "waitedMs"));
+        for (Map.Entry<String, PoolStats> entry : poolStats.entrySet()) {
+            entry.getValue().appendRow(out, entry.getKey());
+        }
+        if (!monitors.isEmpty()) {
+            out.append(String.format("%n%-48s %8s %12s%n", "monitor", "samples", "~blockedMs"));
+            monitors.entrySet().stream()
+                    .sorted(Map.Entry.<String, long[]>comparingByValue((a, b) -> Long.compare(b[0], a[0])))
+                    .limit(20)
+                    .forEach(e -> out.append(String.format("%-48s %8d %12d%n", e.getKey(), e.getValue()[0],
+                            e.getValue()[0] * intervalMillis)));
+        }
+        return out.toString();
+    }
+
+    private void refreshThreads() {
+        long[] all = mx.getAllThreadIds();
+        Map<Long, String> current = new HashMap<>();
+        List<Long> unknown = new ArrayList<>();
+        for (long id : all) {
+            if (poolOfThread.containsKey(id)) {
+                current.put(id, poolOfThread.get(id));
+            } else {
+                unknown.add(id);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            long[] ids = unknown.stream().mapToLong(Long::longValue).toArray();
+            ThreadInfo[] infos = mx.getThreadInfo(ids, 0);
+            for (int i = 0; i < ids.length; i++) {
+                if (infos[i] != null) {
+                    current.put(ids[i], poolOf(infos[i].getThreadName()));
+                }
+            }
+        }
+        poolOfThread.clear();
+        poolOfThread.putAll(current);
+        lastTotals.keySet().retainAll(current.keySet());
+    }
+
+    private String poolOf(String threadName) {
+        for (Map.Entry<String, String> pool : pools.entrySet()) {
+            if (threadName.startsWith(pool.getKey())) {
+                return pool.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void count(String stack) {
+        long[] count = stacks.get(stack);
+        if (count == null) {
+            if (stacks.size() >= maxStacks) {
+                droppedStacks++;
+                return;
+            }
+            count = new long[1];
+            stacks.put(stack, count);
+        }
+        count[0]++;
+    }
+
+    private static String marker(ThreadInfo info) {
+        return switch (info.getThreadState()) {
+            case BLOCKED -> "[BLOCKED]";
+            case WAITING -> "[WAITING]";
+            case TIMED_WAITING -> "[TIMED_WAITING]";
+            case RUNNABLE -> info.isInNative() ? "[NATIVE]" : null;
+            default -> null;
+        };
+    }
+
+    /**
+     * Cumulative per-thread counters from the previous sample, for turning totals into deltas.
+     */
+    private static final class ThreadTotals {
+        long cpuNanos = -1;
+        long blockedCount = -1;
+        long blockedMillis;
+        long waitedCount;
+        long waitedMillis;
+    }
+
+    private static final class PoolStats {
+        long samples;
+        long runnable;
+        long inNative;
+        long blocked;
+        long waiting;
+        long timedWaiting;
+        long cpuNanos;
+        long blockedCount;
+        long blockedMillis;
+        long waitedCount;
+        long waitedMillis;
+
+        void record(ThreadInfo info, long cpuNanos, ThreadTotals last) {
+            samples++;
+            switch (info.getThreadState()) {
+                case RUNNABLE -> {
+                    if (info.isInNative()) {
+                        inNative++;
+                    } else {
+                        runnable++;
+                    }
+                }
+                case BLOCKED -> blocked++;
+                case WAITING -> waiting++;
+                case TIMED_WAITING -> timedWaiting++;
+                default -> {
+                }
+            }
+            if (cpuNanos >= 0) {
+                if (last.cpuNanos >= 0) {
+                    this.cpuNanos += cpuNanos - last.cpuNanos;
+                }
+                last.cpuNanos = cpuNanos;
+            }
+            if (last.blockedCount >= 0) {
+                blockedCount += info.getBlockedCount() - last.blockedCount;
+                waitedCount += info.getWaitedCount() - last.waitedCount;
+                if (info.getBlockedTime() >= 0) {
+                    blockedMillis += info.getBlockedTime() - last.blockedMillis;
+                    waitedMillis += info.getWaitedTime() - last.waitedMillis;
+                }
+            }
+            last.blockedCount = info.getBlockedCount();
+            last.waitedCount = info.getWaitedCount();
+            last.blockedMillis = Math.max(0, info.getBlockedTime());
+            last.waitedMillis = Math.max(0, info.getWaitedTime());
+        }
+
+        void appendRow(StringBuilder out, String pool) {
+            out.append(String.format("%-16s %8d %8.1f%% %7.1f%% %7.1f%% %7.1f%% %7.1f%% %8dms %9d %10d %9d %10d%n",
+                    pool, samples,
+                    percent(runnable), percent(inNative), percent(blocked), percent(waiting), percent(timedWaiting),
+                    cpuNanos / 1_000_000, blockedCount, blockedMillis, waitedCount, waitedMillis));
+        }
+
+        private double percent(long count) {
+            return samples == 0 ? 0 : 100.0 * count / samples;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package threading;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a thread waits when a lock-free buffer is full (producer) or empty (consumer).
+ * Spinning gives the lowest hand-off latency and burns a core; blocking costs a wake-up
+ * but leaves the CPU free. Instances may hold state, so use one per buffer.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Return once {@code ready} reports true.
+     */
+    void await(BooleanSupplier ready) throws InterruptedException;
+
+    /**
+     * Called after every publish or consume so blocked waiters can re-check.
+     */
+    default void signal() {
+    }
+
+    static WaitStrategy spinning() {
+        return ready -> {
+            while (!ready.getAsBoolean()) {
+                checkInterrupt();
+                Thread.onSpinWait();
+            }
+        };
+    }
+
+    static WaitStrategy yielding() {
+        return ready -> {
+            for (int attempt = 0; !ready.getAsBoolean(); attempt++) {
+                checkInterrupt();
+                if (attempt < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        };
+    }
+
+    /**
+     * Spin, then yield, then park with exponential backoff capped at one millisecond.
+     */
+    static WaitStrategy parking() {
+        return ready -> {
+            long parkNanos = 1_000;
+            for (int attempt = 0; !ready.getAsBoolean(); attempt++) {
+                checkInterrupt();
+                if (attempt < 100) {
+                    Thread.onSpinWait();
+                } else if (attempt < 200) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(parkNanos);
+                    parkNanos = Math.min(parkNanos << 1, TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+        };
+    }
+
+    static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    private static void checkInterrupt() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Lock and condition, but only touched when somebody is actually waiting: the waiter count is
+     * raised before the final readiness check and read after every publish, so no wake-up is lost.
+     */
+    final class Blocking implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private Blocking() {
+        }
+
+        @Override
+        public void await(BooleanSupplier ready) throws InterruptedException {
+            if (ready.getAsBoolean()) {
+                return;
+            }
+            lock.lockInterruptibly();
+            try {
+                waiters.incrementAndGet();
+                try {
+                    while (!ready.getAsBoolean()) {
+                        changed.await();
+                    }
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signal() {
+            // Publishers use release stores; order them before the waiter check (StoreLoad).
+            VarHandle.fullFence();
+            if (waiters.get() == 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package threading;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.Thread.sleep;
 
 public class Watch implements Runnable{
+    private final CoarseClock clock = CoarseClock.shared();
     private volatile boolean threadRunning=true;
     @Override
     public void run() {
@@ -20,9 +19,7 @@ public class Watch implements Runnable{
     }
 
     private void printCurrentTime() {
-       DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-             String formatterCurrentTime=  LocalDateTime.now().format(formatter);
-       System.out.println(formatterCurrentTime);
+       System.out.println(clock.timeOfDay());
     }
     private void sleepOnesecond(){
         try {
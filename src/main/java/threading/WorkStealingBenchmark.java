@@ -0,0 +1,135 @@
+package threading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Microtask throughput and start latency: a fixed ThreadPoolExecutor against
+ * {@link WorkStealingScheduler}, for tasks submitted from outside one at a time, in batches, and
+ * for tasks that fork their own children (the processTask-style fan-out).
+ *
+ * Usage: WorkStealingBenchmark [threads] [tasks]
+ */
+public class WorkStealingBenchmark {
+    private static final int LATENCY_SAMPLE_EVERY = 64;
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "-- warm-up --" : "-- measured --");
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            external("ThreadPoolExecutor", pool, tasks, false);
+            forking("ThreadPoolExecutor", pool, tasks);
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+
+            try (WorkStealingScheduler scheduler = new WorkStealingScheduler(threads)) {
+                external("WorkStealing", scheduler, tasks, false);
+                external("WorkStealing batch", scheduler, tasks, true);
+                forking("WorkStealing", scheduler, tasks);
+            }
+        }
+    }
+
+    private static void external(String name, Executor executor, int tasks, boolean batched) {
+        LongAdder done = new LongAdder();
+        LatencyHistogram latency = new LatencyHistogram();
+        long begin = System.nanoTime();
+        List<Runnable> batch = new ArrayList<>(4096);
+        for (int i = 0; i < tasks; i++) {
+            Runnable task = microtask(i, done, latency);
+            if (!batched) {
+                executor.execute(task);
+            } else {
+                batch.add(task);
+                if (batch.size() == 4096) {
+                    ((WorkStealingScheduler) executor).executeAll(batch);
+                    batch = new ArrayList<>(4096);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            ((WorkStealingScheduler) executor).executeAll(batch);
+        }
+        awaitCount(done, tasks);
+        report(name + " external", tasks, System.nanoTime() - begin, latency);
+    }
+
+    /**
+     * A binary tree of tasks where each inner task submits its two children to the same executor.
+     */
+    private static void forking(String name, Executor executor, int tasks) {
+        LongAdder done = new LongAdder();
+        int depth = 31 - Integer.numberOfLeadingZeros(tasks);
+        long total = (1L << (depth + 1)) - 1;
+        long begin = System.nanoTime();
+        executor.execute(new Fork(executor, depth, done));
+        awaitCount(done, total);
+        report(name + " fork/join", total, System.nanoTime() - begin, null);
+    }
+
+    private static Runnable microtask(int i, LongAdder done, LatencyHistogram latency) {
+        long submittedAt = i % LATENCY_SAMPLE_EVERY == 0 ? System.nanoTime() : 0;
+        return () -> {
+            if (submittedAt != 0) {
+                latency.record(System.nanoTime() - submittedAt);
+            }
+            work(i);
+            done.increment();
+        };
+    }
+
+    private static void work(long seed) {
+        long x = seed;
+        for (int i = 0; i < 50; i++) {
+            x = x * 6364136223846793005L + 1442695040888963407L;
+        }
+        if (x == 42) {
+            sink = x;
+        }
+    }
+
+    private static void awaitCount(LongAdder done, long expected) {
+        while (done.sum() < expected) {
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+    }
+
+    private static void report(String name, long tasks, long nanos, LatencyHistogram latency) {
+        System.out.printf("%-34s %7.2f M tasks/s%s%n", name, tasks / (nanos / 1e9) / 1e6,
+                latency == null ? "" : "  start latency p50<=" + latency.percentileMicros(50)
+                        + "us p99<=" + latency.percentileMicros(99) + "us");
+    }
+
+    private static final class Fork implements Runnable {
+        private final Executor executor;
+        private final int depth;
+        private final LongAdder done;
+
+        Fork(Executor executor, int depth, LongAdder done) {
+            this.executor = executor;
+            this.depth = depth;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            if (depth > 0) {
+                executor.execute(new Fork(executor, depth - 1, done));
+                executor.execute(new Fork(executor, depth - 1, done));
+            }
+            work(depth);
+            done.increment();
+        }
+    }
+}
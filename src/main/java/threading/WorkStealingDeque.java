@@ -0,0 +1,95 @@
+package threading;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Chase-Lev work-stealing deque. The owning worker pushes and pops at the bottom without
+ * contention; other workers steal from the top with a single CAS. Only the owner may call
+ * {@link #push} and {@link #pop}.
+ */
+final class WorkStealingDeque {
+    private static final VarHandle TOP;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Runnable[].class);
+    private static final int INITIAL_CAPACITY = 256;
+
+    static {
+        try {
+            TOP = MethodHandles.lookup().findVarHandle(WorkStealingDeque.class, "top", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long top;
+    private volatile long bottom;
+    private volatile Runnable[] array = new Runnable[INITIAL_CAPACITY];
+
+    void push(Runnable task) {
+        long b = bottom;
+        long t = top;
+        Runnable[] a = array;
+        if (b - t >= a.length - 1) {
+            a = grow(a, t, b);
+        }
+        SLOT.setRelease(a, (int) b & (a.length - 1), task);
+        bottom = b + 1;
+    }
+
+    Runnable pop() {
+        long b = bottom - 1;
+        Runnable[] a = array;
+        bottom = b;
+        long t = top;
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+        int index = (int) b & (a.length - 1);
+        Runnable task = (Runnable) SLOT.getAcquire(a, index);
+        if (t == b) {
+            // Last element: race any thief for it.
+            if (!TOP.compareAndSet(this, t, t + 1)) {
+                task = null;
+            }
+            bottom = b + 1;
+        } else {
+            SLOT.setRelease(a, index, null);
+        }
+        return task;
+    }
+
+    /**
+     * @return the stolen task, or null if the deque was empty or another thread won the race
+     */
+    Runnable steal() {
+        long t = top;
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        Runnable[] a = array;
+        Runnable task = (Runnable) SLOT.getAcquire(a, (int) t & (a.length - 1));
+        if (task == null || !TOP.compareAndSet(this, t, t + 1)) {
+            return null;
+        }
+        return task;
+    }
+
+    boolean isEmpty() {
+        return top >= bottom;
+    }
+
+    int size() {
+        return (int) Math.max(0, bottom - top);
+    }
+
+    private Runnable[] grow(Runnable[] old, long t, long b) {
+        Runnable[] grown = new Runnable[old.length << 1];
+        for (long i = t; i < b; i++) {
+            grown[(int) i & (grown.length - 1)] = old[(int) i & (old.length - 1)];
+        }
+        array = grown;
+        return grown;
+    }
+}
@@ -0,0 +1,318 @@
+package threading;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executor with one {@link WorkStealingDeque} per worker instead of a single shared queue.
+ *
+ * Tasks submitted from a worker go straight onto its own deque (LIFO, cache-warm). Tasks from
+ * outside land in a worker's inbox, a lock-free stack of batches, so {@link #executeAll} publishes
+ * a whole batch per worker with one CAS. The target worker is round-robin unless the caller gives an
+ * affinity hint, in which case equal hints always reach the same worker. A worker that runs dry
+ * drains its inbox, then steals from randomly chosen victims' deques and inboxes, and only parks
+ * after a full unsuccessful sweep.
+ */
+public class WorkStealingScheduler implements Executor, AutoCloseable {
+    private static final int STEAL_SWEEPS = 2;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Worker[] workers;
+    private final Queue<Worker> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final CountDownLatch terminated;
+    private volatile boolean shutdown;
+
+    public WorkStealingScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkStealingScheduler(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        workers = new Worker[parallelism];
+        terminated = new CountDownLatch(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    public int parallelism() {
+        return workers.length;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Worker self = currentWorker();
+        if (self != null) {
+            self.deque.push(task);
+            wakeIdle();
+            return;
+        }
+        submitTo(workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)], new Runnable[]{task});
+    }
+
+    /**
+     * Run {@code task} on the worker selected by {@code affinity}; tasks with equal hints share a
+     * worker (and its caches) unless they are stolen by an idle worker.
+     */
+    public void execute(Runnable task, int affinity) {
+        submitTo(workers[Math.floorMod(affinity, workers.length)], new Runnable[]{task});
+    }
+
+    /**
+     * Spread a batch across all workers, one inbox push per worker.
+     */
+    public void executeAll(Collection<? extends Runnable> tasks) {
+        int n = workers.length;
+        int chunk = (tasks.size() + n - 1) / n;
+        if (chunk == 0) {
+            return;
+        }
+        int start = nextWorker.getAndIncrement();
+        Runnable[] batch = new Runnable[Math.min(chunk, tasks.size())];
+        int filled = 0;
+        int target = 0;
+        int remaining = tasks.size();
+        for (Runnable task : tasks) {
+            batch[filled++] = task;
+            remaining--;
+            if (filled == batch.length) {
+                submitTo(workers[Math.floorMod(start + target++, n)], batch);
+                batch = new Runnable[Math.min(chunk, remaining)];
+                filled = 0;
+            }
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * Shut down and wait for the workers to finish the queued tasks. If interrupted while waiting,
+     * returns early with the interrupt flag set; the workers still finish on their own.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        try {
+            terminated.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submitTo(Worker worker, Runnable[] batch) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        if (!worker.inbox.push(batch)) {
+            // Non-empty inbox: whoever received the earlier batch has already been woken.
+            return;
+        }
+        if (worker.parked) {
+            LockSupport.unpark(worker.thread);
+        } else {
+            wakeIdle();
+        }
+    }
+
+    private void wakeIdle() {
+        Worker sleeper = idle.poll();
+        if (sleeper != null) {
+            LockSupport.unpark(sleeper.thread);
+        }
+    }
+
+    private Worker currentWorker() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof WorkerThread && ((WorkerThread) thread).worker.owner() == this) {
+            return ((WorkerThread) thread).worker;
+        }
+        return null;
+    }
+
+    private static final class WorkerThread extends Thread {
+        final Worker worker;
+
+        WorkerThread(Worker worker, String name) {
+            super(worker, name);
+            this.worker = worker;
+            setDaemon(true);
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final int index;
+        final WorkStealingDeque deque = new WorkStealingDeque();
+        final Inbox inbox = new Inbox();
+        final WorkerThread thread;
+        volatile boolean parked;
+
+        Worker(int index) {
+            this.index = index;
+            this.thread = new WorkerThread(this, "work-stealing-" + index);
+        }
+
+        WorkStealingScheduler owner() {
+            return WorkStealingScheduler.this;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Runnable task = findTask();
+                    if (task != null) {
+                        runSafely(task);
+                    } else if (shutdown) {
+                        return;
+                    } else {
+                        park();
+                    }
+                }
+            } finally {
+                terminated.countDown();
+            }
+        }
+
+        private Runnable findTask() {
+            Runnable task = deque.pop();
+            if (task != null) {
+                return task;
+            }
+            if (inbox.drainInto(deque)) {
+                return deque.pop();
+            }
+            return steal();
+        }
+
+        private Runnable steal() {
+            int n = workers.length;
+            if (n == 1) {
+                return null;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int sweep = 0; sweep < STEAL_SWEEPS; sweep++) {
+                int start = random.nextInt(n);
+                for (int i = 0; i < n; i++) {
+                    Worker victim = workers[(start + i) % n];
+                    if (victim == this) {
+                        continue;
+                    }
+                    Runnable task = victim.deque.steal();
+                    if (task == null && victim.inbox.drainInto(deque)) {
+                        task = deque.pop();
+                    }
+                    if (task != null) {
+                        return task;
+                    }
+                }
+                Thread.onSpinWait();
+            }
+            return null;
+        }
+
+        /**
+         * Announce as idle, re-check for work, and only then park, so a submit that raced with
+         * going idle always finds this worker in the idle queue or is seen by the re-check.
+         */
+        private void park() {
+            parked = true;
+            idle.add(this);
+            Runnable task = inbox.isEmpty() ? steal() : null;
+            if (task == null && inbox.isEmpty() && !shutdown) {
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            }
+            parked = false;
+            idle.remove(this);
+            if (task != null) {
+                runSafely(task);
+            }
+        }
+
+        private void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable error) {
+                Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+                handler.uncaughtException(thread, error);
+            }
+        }
+    }
+
+    /**
+     * Multi-producer stack of task batches; the owner (or a thief) takes everything with one swap.
+     */
+    private static final class Inbox {
+        private final AtomicReference<Node> head = new AtomicReference<>();
+
+        /**
+         * @return true if the inbox was empty before this push
+         */
+        boolean push(Runnable[] batch) {
+            Node node = new Node(batch);
+            Node current;
+            do {
+                current = head.get();
+                node.next = current;
+            } while (!head.compareAndSet(current, node));
+            return current == null;
+        }
+
+        boolean isEmpty() {
+            return head.get() == null;
+        }
+
+        /**
+         * Move all pending tasks onto {@code deque}. The oldest batch is pushed last, so the owner
+         * pops it first while thieves take from the newest end.
+         */
+        boolean drainInto(WorkStealingDeque deque) {
+            if (head.get() == null) {
+                return false;
+            }
+            Node node = head.getAndSet(null);
+            if (node == null) {
+                return false;
+            }
+            for (; node != null; node = node.next) {
+                Runnable[] batch = node.batch;
+                for (int i = batch.length - 1; i >= 0; i--) {
+                    deque.push(batch[i]);
+                }
+            }
+            return true;
+        }
+
+        private static final class Node {
+            final Runnable[] batch;
+            Node next;
+
+            Node(Runnable[] batch) {
+                this.batch = batch;
+            }
+        }
+    }
+}
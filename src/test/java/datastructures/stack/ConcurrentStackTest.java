@@ -0,0 +1,203 @@
+package datastructures.stack;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.EmptyStackException;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentStackTest {
+
+    @Test
+    public void behavesLikeAStackOnOneThread() {
+        ConcurrentStack<Integer> stack = new ConcurrentStack<>();
+        assertTrue(stack.isEmpty());
+        assertThrows(EmptyStackException.class, stack::pop);
+        assertNull(stack.poll());
+
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        assertEquals(3, stack.size());
+        assertEquals(3, stack.peek());
+        assertEquals(2, stack.search(2));
+        assertEquals("[3, 2, 1]", stack.toString());
+        assertEquals(3, stack.pop());
+        assertEquals(2, stack.pop());
+        assertEquals(1, stack.pop());
+        assertTrue(stack.isEmpty());
+    }
+
+    /**
+     * Every pushed value comes out exactly once, with elimination forced on.
+     */
+    @Test
+    public void noValueIsLostOrDuplicated() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ConcurrentStack<Integer> stack = new ConcurrentStack<>(2, 512);
+        BitSet[] popped = new BitSet[threads];
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            popped[t] = new BitSet();
+            workers[t] = new Thread(() -> {
+                await(barrier);
+                for (int i = 0; i < perThread; i++) {
+                    stack.push(id * perThread + i);
+                    if ((i & 1) == 1) {
+                        popped[id].set(stack.pop());
+                        popped[id].set(stack.pop());
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        BitSet all = new BitSet();
+        int count = 0;
+        for (BitSet bits : popped) {
+            assertFalse(all.intersects(bits), "value popped twice");
+            all.or(bits);
+            count += bits.cardinality();
+        }
+        assertEquals(threads * perThread, count);
+        assertEquals(threads * perThread, all.cardinality());
+        assertTrue(stack.isEmpty());
+    }
+
+    /**
+     * Run many short histories of concurrent pushes and pops and check that each
+     * one can be explained by some sequential order that respects real time
+     * (Wing and Gong's exhaustive search, feasible because histories are small).
+     */
+    @Test
+    public void concurrentHistoriesAreLinearizable() throws Exception {
+        int threads = 3;
+        int opsPerThread = 4;
+        for (int round = 0; round < 2_000; round++) {
+            ConcurrentStack<Integer> stack = new ConcurrentStack<>(1, 64);
+            AtomicLong clock = new AtomicLong();
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<List<Op>> perThread = new ArrayList<>();
+            Thread[] workers = new Thread[threads];
+
+            for (int t = 0; t < threads; t++) {
+                List<Op> ops = new ArrayList<>();
+                perThread.add(ops);
+                int id = t;
+                int phase = round & 1;
+                workers[t] = new Thread(() -> {
+                    await(barrier);
+                    for (int i = 0; i < opsPerThread; i++) {
+                        boolean push = ((id + i + phase) & 1) == 0;
+                        int value = id * opsPerThread + i;
+                        long call = clock.incrementAndGet();
+                        Integer result = null;
+                        if (push) {
+                            stack.push(value);
+                        } else {
+                            result = stack.poll();
+                        }
+                        ops.add(new Op(push, value, result, call, clock.incrementAndGet()));
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            List<Op> history = new ArrayList<>();
+            perThread.forEach(history::addAll);
+            assertTrue(linearizable(history, new boolean[history.size()], new ArrayDeque<>(), 0),
+                    "not linearizable: " + history);
+        }
+    }
+
+    private static boolean linearizable(List<Op> history, boolean[] done, Deque<Integer> model, int count) {
+        if (count == history.size()) {
+            return true;
+        }
+        for (int i = 0; i < history.size(); i++) {
+            if (done[i] || !minimal(history, done, history.get(i))) {
+                continue;
+            }
+            Op op = history.get(i);
+            if (op.push) {
+                model.push(op.value);
+            } else if (op.result == null ? !model.isEmpty() : !op.result.equals(model.peek())) {
+                continue;
+            }
+            Integer undo = op.push || model.isEmpty() ? null : model.pop();
+            done[i] = true;
+            if (linearizable(history, done, model, count + 1)) {
+                return true;
+            }
+            done[i] = false;
+            if (op.push) {
+                model.pop();
+            } else if (undo != null) {
+                model.push(undo);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An operation may go next if no other pending operation returned before it was called.
+     */
+    private static boolean minimal(List<Op> history, boolean[] done, Op candidate) {
+        for (int j = 0; j < history.size(); j++) {
+            if (!done[j] && history.get(j).ret < candidate.call) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Op {
+        final boolean push;
+        final int value;
+        final Integer result;
+        final long call;
+        final long ret;
+
+        Op(boolean push, int value, Integer result, long call, long ret) {
+            this.push = push;
+            this.value = value;
+            this.result = result;
+            this.call = call;
+            this.ret = ret;
+        }
+
+        @Override
+        public String toString() {
+            return (push ? "push(" + value + ")" : "pop=" + result) + "@" + call + ".." + ret;
+        }
+    }
+}